@@ -0,0 +1,108 @@
+package org.apache.sis.desktop.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.sis.desktop.crs.CodeIndex;
+import org.apache.sis.desktop.crs.CodeSearch;
+import org.apache.sis.referencing.CRS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+import org.opengis.util.InternationalString;
+
+/**
+ * Listing the CRS codes of the installed EPSG database, and searching entries
+ * like those of the {@link CodeIndex} built from them. The entries are made
+ * from the factory once per fork; the shared index is not used since it would
+ * examine every CRS in the background during the measurements and write to
+ * the application cache.
+ *
+ * @author Siddhesh Rane
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CodeBenchmark {
+
+    @Param("utm 33")
+    public String query;
+
+    private CRSAuthorityFactory factory;
+    private List<CodeIndex.Entry> entries;
+    private CodeSearch search;
+
+    @Setup
+    public void setup() throws FactoryException {
+        factory = CRS.getAuthorityFactory(null);
+        entries = new ArrayList<>();
+        for (String identifier : factory.getAuthorityCodes(CoordinateReferenceSystem.class)) {
+            int colon = identifier.indexOf(':');
+            String description;
+            try {
+                InternationalString text = factory.getDescriptionText(identifier);
+                description = text == null ? "" : text.toString();
+            } catch (FactoryException ex) {
+                //the index keeps such codes without description too
+                description = null;
+            }
+            entries.add(new CodeIndex.Entry(colon > 0 ? identifier.substring(0, colon) : "", identifier.substring(colon + 1),
+                    description, "CRS"));
+        }
+        search = new CodeSearch(entries);
+    }
+
+    /**
+     * What the CRS list did before the index: every code and its description
+     * queried from the database.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    public int listCodes() throws FactoryException {
+        int length = 0;
+        for (String code : factory.getAuthorityCodes(CoordinateReferenceSystem.class)) {
+            InternationalString description = factory.getDescriptionText(code);
+            length += description == null ? 0 : description.length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public CodeSearch buildSearch() {
+        return new CodeSearch(entries);
+    }
+
+    @Benchmark
+    public int search() {
+        return search.search(query, null).size();
+    }
+
+    /**
+     * Typing the query one character at a time, each search narrowing the
+     * previous result.
+     */
+    @Benchmark
+    public int incrementalSearch() {
+        CodeSearch.Result result = null;
+        for (int i = 1; i <= query.length(); i++) {
+            result = search.search(query.substring(0, i), result);
+        }
+        return result.size();
+    }
+}
@@ -0,0 +1,118 @@
+package org.apache.sis.desktop.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.apache.sis.desktop.PointColumns;
+import org.apache.sis.desktop.track.TrackSegment;
+import org.apache.sis.internal.storage.FeatureStore;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStores;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opengis.feature.Feature;
+import org.opengis.metadata.Metadata;
+
+/**
+ * Opening files and reading their metadata and features, as done when a file
+ * is dropped in the application and its tabs are opened. Sample files are
+ * chosen with {@code -p file=a.nc,b.tif,c.gpx}, see {@link Fixtures}.
+ *
+ * @author Siddhesh Rane
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataStoreBenchmark {
+
+    @Param(Fixtures.SYNTHETIC_GPX)
+    public String file;
+
+    private File input;
+
+    @Setup
+    public void setup() throws IOException {
+        input = Fixtures.get(file);
+    }
+
+    @Benchmark
+    public Metadata openAndGetMetadata() throws DataStoreException {
+        DataStore store = DataStores.open(input);
+        try {
+            return store.getMetadata();
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Streams all features through the same filter as the waypoint table.
+     */
+    @Benchmark
+    public long streamWaypoints() throws DataStoreException {
+        DataStore store = DataStores.open(input);
+        try {
+            if (!(store instanceof FeatureStore)) {
+                return 0;
+            }
+            Predicate<Feature> waypoints = f -> f.getType().getName().toString().contains("WayPoint");
+            return ((FeatureStore) store).features().filter(waypoints).count();
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Streams the waypoints into primitive columns, as done by the waypoint
+     * table.
+     */
+    @Benchmark
+    public PointColumns streamWaypointsToColumns() throws DataStoreException {
+        DataStore store = DataStores.open(input);
+        try {
+            PointColumns columns = new PointColumns(1024);
+            if (store instanceof FeatureStore) {
+                ((FeatureStore) store).features()
+                        .filter(f -> f.getType().getName().toString().contains("WayPoint"))
+                        .forEach(columns::add);
+            }
+            return columns;
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Reads routes and tracks with their statistics and levels of detail, as
+     * done by the routes and tracks tabs.
+     */
+    @Benchmark
+    public List<TrackSegment> readTracks() throws DataStoreException {
+        DataStore store = DataStores.open(input);
+        try {
+            List<TrackSegment> segments = new ArrayList<>();
+            if (store instanceof FeatureStore) {
+                ((FeatureStore) store).features().forEach(f -> segments.addAll(TrackSegment.of(f)));
+            }
+            return segments;
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.apache.sis.desktop.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Locates the files read by the benchmarks. Sample files are looked up in the
+ * directory given by the {@code sis.benchmark.fixtures} system property. The
+ * name {@value #SYNTHETIC_GPX} is special: a GPX file of
+ * {@value #SYNTHETIC_POINTS} waypoints and one track is generated on first
+ * use, so that benchmarks run even without sample files.
+ *
+ * @author Siddhesh Rane
+ */
+public final class Fixtures {
+
+    public static final String SYNTHETIC_GPX = "synthetic.gpx";
+    public static final int SYNTHETIC_POINTS = 20000;
+
+    private static Path synthetic;
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param name file name relative to the fixtures directory, or
+     *             {@value #SYNTHETIC_GPX}
+     * @return the file
+     * @throws IOException if the file does not exist or could not be
+     *                     generated
+     */
+    public static synchronized File get(String name) throws IOException {
+        if (SYNTHETIC_GPX.equals(name)) {
+            if (synthetic == null) {
+                synthetic = Files.createTempFile("sis-benchmark", ".gpx");
+                synthetic.toFile().deleteOnExit();
+                writeGPX(synthetic, SYNTHETIC_POINTS);
+            }
+            return synthetic.toFile();
+        }
+        Path file = Paths.get(System.getProperty("sis.benchmark.fixtures", "fixtures")).resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("No fixture " + file + ", set -Dsis.benchmark.fixtures to the samples directory.");
+        }
+        return file.toFile();
+    }
+
+    /**
+     * Writes a GPX 1.1 file with the given number of waypoints, and a track of
+     * as many points.
+     */
+    private static void writeGPX(Path file, int points) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<gpx version=\"1.1\" creator=\"sis-desktop benchmarks\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n");
+            out.write("  <metadata><name>Synthetic</name><desc>Generated for benchmarks</desc>"
+                    + "<bounds minlat=\"40\" minlon=\"-10\" maxlat=\"50\" maxlon=\"10\"/></metadata>\n");
+            long time = 1_500_000_000_000L;
+            for (int i = 0; i < points; i++) {
+                out.write(String.format(Locale.ROOT, "  <wpt lat=\"%.6f\" lon=\"%.6f\"><ele>%.1f</ele><time>%s</time><name>WP%d</name></wpt>%n",
+                        40 + random.nextDouble() * 10, -10 + random.nextDouble() * 20, random.nextDouble() * 3000,
+                        Instant.ofEpochMilli(time + i * 1000L), i));
+            }
+            out.write("  <trk><name>Track</name><trkseg>\n");
+            double lat = 45, lon = 0;
+            for (int i = 0; i < points; i++) {
+                lat += (random.nextDouble() - 0.5) * 1e-3;
+                lon += (random.nextDouble() - 0.5) * 1e-3;
+                out.write(String.format(Locale.ROOT, "    <trkpt lat=\"%.6f\" lon=\"%.6f\"><ele>%.1f</ele><time>%s</time></trkpt>%n",
+                        lat, lon, 100 + random.nextDouble() * 10, Instant.ofEpochMilli(time + i * 1000L)));
+            }
+            out.write("  </trkseg></trk>\n</gpx>\n");
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.apache.sis.desktop.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.sis.desktop.Config;
+import org.apache.sis.desktop.ConfigStore;
+import org.apache.sis.desktop.metadata.MetadataSummary;
+import org.apache.sis.desktop.metadata.NodePaths;
+import org.apache.sis.metadata.MetadataStandard;
+import org.apache.sis.metadata.ValueExistencePolicy;
+import org.apache.sis.metadata.iso.DefaultMetadata;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStores;
+import org.apache.sis.util.collection.TreeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opengis.metadata.Metadata;
+
+/**
+ * Work done on a metadata once read: conversion to a tree, summary
+ * extraction, node path computation for configurations and configuration
+ * files.
+ *
+ * @author Siddhesh Rane
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetadataBenchmark {
+
+    @Param(Fixtures.SYNTHETIC_GPX)
+    public String file;
+
+    private Metadata metadata;
+    private TreeTable tree;
+    private Map<String, ConfigStore.Setting> settings;
+    private ConfigStore store;
+    private Path storeDirectory;
+
+    @Setup
+    public void setup() throws IOException, DataStoreException {
+        DataStore ds = DataStores.open(Fixtures.get(file));
+        try {
+            metadata = ds.getMetadata();
+        } finally {
+            ds.close();
+        }
+        tree = asTreeTable(metadata);
+        settings = new LinkedHashMap<>();
+        addSettings(tree.getRoot(), new NodePaths());
+        storeDirectory = Files.createTempDirectory("sis-benchmark-configs");
+        store = new ConfigStore(storeDirectory);
+        store.save("benchmark", settings);
+    }
+
+    private void addSettings(TreeTable.Node node, NodePaths paths) {
+        settings.put(paths.getPath(node), new ConfigStore.Setting(settings.size(), true, true));
+        if (!node.isLeaf()) {
+            for (TreeTable.Node child : node.getChildren()) {
+                addSettings(child, paths);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.delete("benchmark");
+        Files.deleteIfExists(storeDirectory);
+    }
+
+    /**
+     * Same as {@code MetadataTable.createTreeTable}, which can not be called
+     * without starting JavaFX.
+     */
+    private static TreeTable asTreeTable(Metadata metadata) {
+        return MetadataStandard.ISO_19115.asTreeTable(new DefaultMetadata(metadata), Metadata.class, ValueExistencePolicy.NON_EMPTY);
+    }
+
+    /**
+     * Conversion to a tree and a walk of all its nodes, since the tree is
+     * built lazily.
+     */
+    @Benchmark
+    public int asTreeTable() {
+        return count(asTreeTable(metadata).getRoot());
+    }
+
+    private static int count(TreeTable.Node node) {
+        int n = 1;
+        if (!node.isLeaf()) {
+            for (TreeTable.Node child : node.getChildren()) {
+                n += count(child);
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public MetadataSummary summary() {
+        return MetadataSummary.of(MetadataSummary.createTreeTable(metadata));
+    }
+
+    @Benchmark
+    public TreeTable.Node getNodeByIdentifierPath() {
+        return MetadataSummary.getNodeByIdentifierPath(tree, MetadataSummary.IDENTIFICATION_INFO, MetadataSummary.CITATION, "title");
+    }
+
+    /**
+     * Path of every node, rebuilt from scratch as {@link Config} used to.
+     */
+    @Benchmark
+    public void getNodePath(Blackhole bh) {
+        walkPaths(tree.getRoot(), null, bh);
+    }
+
+    /**
+     * Path of every node through a cache, as done by {@link Config}.
+     */
+    @Benchmark
+    public void cachedNodePath(Blackhole bh) {
+        walkPaths(tree.getRoot(), new NodePaths(), bh);
+    }
+
+    private static void walkPaths(TreeTable.Node node, NodePaths paths, Blackhole bh) {
+        bh.consume(paths == null ? Config.getNodePath(node) : paths.getPath(node));
+        if (!node.isLeaf()) {
+            for (TreeTable.Node child : node.getChildren()) {
+                walkPaths(child, paths, bh);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, ConfigStore.Setting> loadConfig() {
+        return store.load("benchmark");
+    }
+
+    @Benchmark
+    public void saveConfig() {
+        store.save("benchmark", settings);
+    }
+}
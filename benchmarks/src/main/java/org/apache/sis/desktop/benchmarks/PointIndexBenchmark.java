@@ -0,0 +1,75 @@
+package org.apache.sis.desktop.benchmarks;
+
+import com.esri.core.geometry.Envelope2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.sis.desktop.PointColumns;
+import org.apache.sis.desktop.PointIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bounding box queries over random points, through the index and by a scan of
+ * the columns as done without it.
+ *
+ * @author Siddhesh Rane
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PointIndexBenchmark {
+
+    @Param("1000000")
+    public int points;
+
+    private PointColumns columns;
+    private PointIndex index;
+    private Envelope2D box;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        columns = new PointColumns(points);
+        for (int i = 0; i < points; i++) {
+            columns.add(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360,
+                    Double.NaN, PointColumns.NO_TIME, null, null);
+        }
+        index = PointIndex.build(columns);
+        //about one thousandth of the points
+        box = new Envelope2D(10, 10, 10 + 360 * 0.0316, 10 + 180 * 0.0316);
+    }
+
+    @Benchmark
+    public PointIndex build() {
+        return PointIndex.build(columns);
+    }
+
+    @Benchmark
+    public int[] query() {
+        return index.query(box);
+    }
+
+    @Benchmark
+    public int scan() {
+        int n = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            double x = columns.getLongitude(i), y = columns.getLatitude(i);
+            if (x >= box.xmin && x <= box.xmax && y >= box.ymin && y <= box.ymax) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -1,30 +1,26 @@
 package org.apache.sis.desktop;
 
 import org.apache.sis.desktop.metadata.MetadataTable;
-import de.jensd.fx.fontawesome.AwesomeDude;
-import de.jensd.fx.fontawesome.AwesomeIcon;
 import java.io.File;
-import java.io.IOException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.function.Predicate;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import java.util.prefs.Preferences;
 import javafx.beans.binding.Bindings;
+import javafx.collections.ListChangeListener;
 import javafx.concurrent.Task;
+import javafx.event.Event;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.ContextMenu;
-import javafx.scene.control.Label;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ProgressIndicator;
@@ -37,19 +33,21 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
-import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import org.apache.sis.desktop.about.AboutController;
+import org.apache.sis.desktop.crs.CRSEditor;
+import org.apache.sis.desktop.crs.CrsCache;
+import org.apache.sis.desktop.crs.CrsSnapshotStore;
+import org.apache.sis.desktop.crs.DefinitionSource;
+import org.apache.sis.desktop.crs.FingerprintIndex;
 import org.apache.sis.storage.DataStoreException;
-import org.apache.sis.storage.DataStores;
 import org.apache.sis.util.collection.TableColumn;
 import org.apache.sis.util.collection.TreeTable;
 import org.apache.sis.desktop.dnd.DndController;
 import org.apache.sis.desktop.metadata.SummaryView;
-import org.opengis.metadata.Metadata;
 
 /**
  * FXML Controller class
@@ -65,6 +63,8 @@ public class AppController implements Initializable {
     @FXML
     private MenuItem openMenu;
     @FXML
+    private CheckMenuItem prefetchMenu;
+    @FXML
     private MenuItem aboutMenu;
     @FXML
     private VBox about;
@@ -87,18 +87,34 @@ public class AppController implements Initializable {
 
     @Override
     public void initialize(URL url, ResourceBundle rb) {
-        dndController.setFileNodeFactory(this::createDisplayNode);
+        dndController.setFileMenuFactory(this::createFileMenu);
         dndController.getExtensionFilters().setAll(EXTENSION_FILTERS);
         openMenu.setOnAction(ae -> {
             FileChooser fileChooser = new FileChooser();
             fileChooser.getExtensionFilters().setAll(EXTENSION_FILTERS);
             List<File> files = fileChooser.showOpenMultipleDialog(borderPane.getScene().getWindow());
             if (files != null) {
-                dndController.getDraggedFiles().addAll(files);
+                dndController.addFiles(files);
                 tabPane.getSelectionModel().select(fileTab);
             }
         });
 
+        //metadata of dropped files is read ahead only if asked, on the lowest priority lane
+        prefetchMenu.setSelected(Boolean.getBoolean("sis.desktop.prefetch"));
+        prefetchMenu.selectedProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue) {
+                dndController.getDraggedFiles().forEach(MetadataCache.getDefault()::prefetch);
+            }
+        });
+        dndController.getDraggedFiles().addListener((ListChangeListener.Change<? extends File> change) -> {
+            while (change.next()) {
+                change.getRemoved().forEach(MetadataCache.getDefault()::evict);
+                if (prefetchMenu.isSelected()) {
+                    change.getAddedSubList().forEach(MetadataCache.getDefault()::prefetch);
+                }
+            }
+        });
+
         aboutWindow = new Stage(StageStyle.DECORATED);
         aboutWindow.setTitle("About");
         Scene scene = new Scene(about, 500, 500);
@@ -115,6 +131,27 @@ public class AppController implements Initializable {
         aboutWindow.show();
     }
 
+    @FXML
+    private void showStatistics() {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Statistics");
+        alert.setHeaderText(null);
+        StringBuilder statistics = new StringBuilder().append(TaskScheduler.getDefault())
+                .append('\n').append(ContentTypeCache.getDefault())
+                .append('\n').append(MetadataCache.getDefault())
+                .append('\n').append(MetadataDiskCache.getDefault())
+                .append('\n').append(CrsCache.getDefault())
+                .append('\n').append(CrsSnapshotStore.getDefault())
+                .append('\n').append(FingerprintIndex.getInstance());
+        for (DefinitionSource<?> source : CRSEditor.getDefinitionSources()) {
+            statistics.append('\n').append(source);
+        }
+        TextArea text = new TextArea(statistics.toString());
+        text.setEditable(false);
+        alert.getDialogPane().setContent(text);
+        alert.show();
+    }
+
     public AppController() {
         loadPreferences();
     }
@@ -150,22 +187,25 @@ public class AppController implements Initializable {
         tab.setClosable(true);
         tabPane.getTabs().add(tab);
 
-        Task<Metadata> task = new Task<Metadata>() {
+        DataStorePool.Handle handle = DataStorePool.getDefault().newHandle(file);
+        //both tree views are built here, away from the JavaFX thread, the summary may have been prefetched
+        Task<TreeTable[]> task = new Task<TreeTable[]>() {
             @Override
-            protected Metadata call() throws DataStoreException {
-                return DataStores.open(file).getMetadata();
+            protected TreeTable[] call() throws DataStoreException {
+                MetadataCache cache = MetadataCache.getDefault();
+                return new TreeTable[]{MetadataTable.createTreeTable(cache.getMetadata(handle)), cache.getSummaryTree(handle)};
             }
         };
         task.setOnRunning(e -> {
             tab.setContent(new ProgressIndicator(-1));
         });
         task.setOnSucceeded(e -> {
-            Metadata mt = task.getValue();
-            MetadataTable table = new MetadataTable(mt);
-            SummaryView summary = new SummaryView(mt);
+            TreeTable[] trees = task.getValue();
+            MetadataTable table = new MetadataTable(trees[0]);
+            SummaryView summary = new SummaryView(trees[1]);
             ToggleButton summaryToggle = new ToggleButton("Summary");
 
-            Config config = new Config(Preferences.userNodeForPackage(MainApp.class), table);
+            Config config = new Config(ConfigStore.getDefault(), table);
             ComboBox<String> prefBox = new ComboBox<>();
             prefBox.setEditable(true);
             Bindings.bindContent(prefBox.getItems(), config.getAvailableConfigurations());
@@ -208,12 +248,18 @@ public class AppController implements Initializable {
                 }
             });
             tab.setContent(pane);
+            //the table may still be building its items when the tab is closed
+            EventHandler<Event> onClosed = tab.getOnClosed();
+            tab.setOnClosed(ce -> {
+                table.dispose();
+                onClosed.handle(ce);
+            });
         });
         task.setOnFailed(e -> tab.setContent(new TextArea(task.getException().toString())));
 
-        Thread t = new Thread(task);
-        t.setDaemon(true);
-        t.start();
+        tab.setOnClosed(e -> handle.close());
+        TaskScheduler.getDefault().submit(task, TaskScheduler.Lane.FOREGROUND);
+        TaskScheduler.getDefault().cancelOnClose(tab, task);
     }
 
     public void openFeatureEditorTab(File file) {
@@ -221,6 +267,7 @@ public class AppController implements Initializable {
         tab.setClosable(true);
         FeatureEditor vectorEditor = new FeatureEditor(file);
         tab.setContent(vectorEditor);
+        tab.setOnClosed(e -> vectorEditor.dispose());
         tabPane.getTabs().add(tab);
     }
 
@@ -229,40 +276,18 @@ public class AppController implements Initializable {
     }
 
     /**
-     * This function generates a graphical {@code Node} to represent
-     * {@code file} in the drag and drop pane.
+     * Creates the context menu of a file in the drag and drop pane.
      *
-     * @param file the file that needs to be represented
-     * @return a new node to represent file
+     * @param file the file that was clicked
+     * @return a new menu of actions on the file
      */
-    private Node createDisplayNode(File file) {
-        final Label icon = AwesomeDude.createIconLabel(AwesomeIcon.FILE, "45");
-        icon.getStyleClass().add("icon");
-        Text filename = new Text(file.getName());
-        filename.getStyleClass().add("filename");
-//        filename.setWrappingWidth(200);
-        String mime = "N/A";
-        try {
-            mime = DataStores.probeContentType(file);
-            if (mime == null) {
-                mime = Files.probeContentType(file.toPath()) + '*';
-            }
-        } catch (DataStoreException ex) {
-            mime = "N/A";
-        } catch (IOException ex) {
-            Logger.getLogger(DndController.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        Text type = new Text(mime);
-        type.getStyleClass().add("mime");
-        VBox vBox = new VBox(icon, filename, type);
-        vBox.getStyleClass().add("file-vbox");
+    private ContextMenu createFileMenu(File file) {
         final MenuItem openMeta = new MenuItem("Open metadata");
         openMeta.setOnAction(ae -> openMetadataTab(file));
         MenuItem openFeatures = new MenuItem("check for features");
         openFeatures.setOnAction(ae -> openFeatureEditorTab(file));
-        ContextMenu cm = new ContextMenu(openMeta, openFeatures);
-
-        vBox.setOnContextMenuRequested(cme -> cm.show(vBox, cme.getScreenX(), cme.getScreenY()));
-        return vBox;
+        MenuItem remove = new MenuItem("Remove");
+        remove.setOnAction(ae -> dndController.removeFiles(Collections.singleton(file)));
+        return new ContextMenu(openMeta, openFeatures, remove);
     }
 }
@@ -1,22 +1,20 @@
 package org.apache.sis.desktop;
 
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import java.util.prefs.BackingStoreException;
-import java.util.prefs.NodeChangeEvent;
-import java.util.prefs.NodeChangeListener;
-import java.util.prefs.Preferences;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
 import javafx.scene.control.TreeItem;
+import org.apache.sis.desktop.ConfigStore.Setting;
+import org.apache.sis.desktop.metadata.NodePaths;
 import org.apache.sis.desktop.metadata.NodeTreeTable;
 import static org.apache.sis.util.collection.TableColumn.IDENTIFIER;
 import static org.apache.sis.util.collection.TableColumn.NAME;
@@ -28,37 +26,41 @@ import org.apache.sis.util.collection.TreeTable;
  *
  * @author Siddhesh Rane
  */
-public class Config implements NodeChangeListener {
+public class Config {
 
     /**
      * When the configuration for a node does not exist it is by default added
      * to the end of the table, expanded by default.
      */
-    private static final Data SHOW_ALL = new Data(Integer.MAX_VALUE, true, true);
-    private static final Data HIDE_MISSING = new Data(Integer.MAX_VALUE, false, false);
-    private Data DEFAULT_BEHAVIOUR = SHOW_ALL;
+    private static final Setting SHOW_ALL = new Setting(Integer.MAX_VALUE, true, true);
+    private static final Setting HIDE_MISSING = new Setting(Integer.MAX_VALUE, false, false);
+    private volatile Setting DEFAULT_BEHAVIOUR = SHOW_ALL;
     
     /*Default empty configuration that displays all data*/
     public static final String DEFAULT_CONFIG = "Default";
 
     /**
-     * All configuration will be stored under org.apache.sis.desktop namespace.
+     * Where existing and new configurations are stored.
      */
-    private final Preferences rootPreferences;
+    private final ConfigStore store;
     private final NodeTreeTable table;
 
-    private final Map<String, Data> map = new HashMap<>();
+    /**
+     * Read by the predicates below, which the table may evaluate on a
+     * background thread while building its items.
+     */
+    private final Map<String, Setting> map = new ConcurrentHashMap<>();
 
-    private final Predicate<TreeTable.Node> createTreeItemForNode = t -> map.getOrDefault(getNodePath(t), DEFAULT_BEHAVIOUR).createTreeItem;
+    private final Predicate<TreeTable.Node> createTreeItemForNode = t -> map.getOrDefault(table.getNodePaths().getPath(t), DEFAULT_BEHAVIOUR).isVisible();
     private ObjectProperty<Predicate<TreeTable.Node>> createTreeItemForNodeProperty = new SimpleObjectProperty<>(createTreeItemForNode);
     public ObjectProperty<Predicate<TreeTable.Node>> createTreeItemForNodeProperty() {
         return createTreeItemForNodeProperty;
     }
 
-    private final Comparator<TreeTable.Node> userSortOrder = Comparator.comparingInt(node -> map.getOrDefault(getNodePath(node), DEFAULT_BEHAVIOUR).position);
+    private final Comparator<TreeTable.Node> userSortOrder = Comparator.comparingInt(node -> map.getOrDefault(table.getNodePaths().getPath(node), DEFAULT_BEHAVIOUR).getPosition());
     private ObjectProperty<Comparator<TreeTable.Node>> comparator = new SimpleObjectProperty<>(userSortOrder);
 
-    private final Predicate<TreeTable.Node> expandNodeByDefault = t -> map.getOrDefault(getNodePath(t), DEFAULT_BEHAVIOUR).expandBydefault;
+    private final Predicate<TreeTable.Node> expandNodeByDefault = t -> map.getOrDefault(table.getNodePaths().getPath(t), DEFAULT_BEHAVIOUR).isExpanded();
     private SimpleObjectProperty<Predicate<TreeTable.Node>> expandNodeProperty = new SimpleObjectProperty<>(expandNodeByDefault);
 
     private final ReadOnlyObjectWrapper<Boolean> configDirty = new ReadOnlyObjectWrapper<>(false);
@@ -70,9 +72,15 @@ public class Config implements NodeChangeListener {
     }
 
     private ObservableList<String> configurations = FXCollections.observableArrayList(DEFAULT_CONFIG);
+    private final ListChangeListener<String> storeListener = c -> {
+        while (c.next()) {
+            configurations.removeAll(c.getRemoved());
+            configurations.addAll(c.getAddedSubList());
+        }
+    };
     /**
-     * Returns an unmodifiable list of configurations under the root preferences
-     * by their name.
+     * Returns an unmodifiable list of configurations in the store by their
+     * name.
      *
      * @return
      */
@@ -89,30 +97,23 @@ public class Config implements NodeChangeListener {
     }
 
     /**
-     * @param rootPreferences existing and new configurations will be stored as
-     *                        children of this
-     * @param table           the table whose state is to be observed
+     * @param store existing and new configurations will be stored there
+     * @param table the table whose state is to be observed
      */
-    public Config(Preferences rootPreferences, NodeTreeTable table) {
-        this.rootPreferences = rootPreferences;
+    public Config(ConfigStore store, NodeTreeTable table) {
+        this.store = store;
         this.table = table;
-        loadChildren();
-        rootPreferences.addNodeChangeListener(this);
+        configurations.addAll(store.getNames());
+        store.getNames().addListener(new WeakListChangeListener<>(storeListener));
         table.setCreateTreeItemForNode(createTreeItemForNode);
         table.setExpandNode(expandNodeByDefault);
         table.setOrder(userSortOrder);
-        table.getRoot().addEventHandler(TreeItem.treeNotificationEvent(), e -> configDirty.set(true));
-    }
-
-    private void loadChildren() {
-        try {
-            String[] childrenNames = rootPreferences.childrenNames();
-            for (String childrenName : childrenNames) {
-                configurations.add(childrenName);
+        table.getRoot().addEventHandler(TreeItem.treeNotificationEvent(), e -> {
+            //items being added by the table itself are not a user change
+            if (!table.isLoading()) {
+                configDirty.set(true);
             }
-        } catch (BackingStoreException ex) {
-            Logger.getLogger(Config.class.getName()).log(Level.SEVERE, null, ex);
-        }
+        });
     }
 
     public void loadConfig(String name) {
@@ -126,67 +127,32 @@ public class Config implements NodeChangeListener {
             configDirty.set(Boolean.FALSE);
             return;
         }
-        Preferences pref = rootPreferences.node(name);
         DEFAULT_BEHAVIOUR = HIDE_MISSING;
         map.clear();
-        try {
-            String[] keys = pref.keys();
-            for (String key : keys) {
-                Data data = new Data();
-                String value = pref.get(key, "+ v 0");
-                String[] split = value.split("\\s+");
-                if ("+".equals(split[0])) {
-                    data.expandBydefault = true;
-                }
-                if ("v".equals(split[1])) {
-                    data.createTreeItem = true;
-                }
-                int sortPosn = Integer.parseInt(split[2]);
-                data.position = sortPosn;
-                map.put(key, data);
-            }
-        } catch (BackingStoreException ex) {
-            Logger.getLogger(Config.class.getName()).log(Level.SEVERE, null, ex);
-        }
+        map.putAll(store.load(name));
         currentConfig.set(name);
         table.updateRoot();
         configDirty.set(Boolean.FALSE);
     }
 
     /**
-     * Updates an existing preferences file or creates a new one with data from
-     * current config.
+     * Updates an existing configuration or creates a new one with data from
+     * current config. All nodes are written at once.
      *
-     * @param name Name of the preference file
+     * @param name Name of the configuration
      */
     public void saveConfig(String name) {
         if (name == null || name.isEmpty() || name == DEFAULT_CONFIG) {
             return;
         }
-        Preferences pref = rootPreferences.node(name);
-        try {
-            pref.clear();
-        } catch (BackingStoreException ex) {
-            Logger.getLogger(Config.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        for (Map.Entry<String, Data> entry : map.entrySet()) {
-            String key = entry.getKey();
-            char expandByDefault = entry.getValue().expandBydefault ? '+' : '-';
-            char createTreeItem = entry.getValue().createTreeItem ? 'v' : 'h';
-            int pos = entry.getValue().position;
-            pref.put(key, expandByDefault + " " + createTreeItem + " " + pos);
-        }
+        store.save(name, map);
     }
 
     public void deleteConfig(String name) {
         if (name == null || name.isEmpty() || name == DEFAULT_CONFIG) {
             return;
         }
-        try {
-            rootPreferences.node(name).removeNode();
-        } catch (BackingStoreException ex) {
-            Logger.getLogger(Config.class.getName()).log(Level.SEVERE, null, ex);
-        }
+        store.delete(name);
         loadConfig(DEFAULT_CONFIG);
     }
 
@@ -201,11 +167,10 @@ public class Config implements NodeChangeListener {
         configDirty.set(Boolean.FALSE);
     }
 
-    private void addVisibleNodesToMap(Map<String, Data> map, TreeItem<TreeTable.Node> rootItem, int count) {
+    private void addVisibleNodesToMap(Map<String, Setting> map, TreeItem<TreeTable.Node> rootItem, int count) {
         TreeTable.Node root = rootItem.getValue();
-        String key = getNodePath(root);
-        Data data = new Data(count, rootItem.isExpanded(), true);
-        map.put(key, data);
+        String key = table.getNodePaths().getPath(root);
+        map.put(key, new Setting(count, rootItem.isExpanded(), true));
         if (!rootItem.isLeaf()) {
             for (TreeItem<TreeTable.Node> child : rootItem.getChildren()) {
                 count++;
@@ -214,10 +179,10 @@ public class Config implements NodeChangeListener {
         }
     }
 
-    private void addHiddenNodesToMap(Map<String, Data> map, TreeTable.Node root, int count) {
-        String path = getNodePath(root);
+    private void addHiddenNodesToMap(Map<String, Setting> map, TreeTable.Node root, int count) {
+        String path = table.getNodePaths().getPath(root);
         if (!map.containsKey(path)) {
-            map.put(path, new Data(count, false, false));
+            map.put(path, new Setting(count, false, false));
         }
         if (root.isLeaf()) {
             return;
@@ -239,6 +204,14 @@ public class Config implements NodeChangeListener {
         return id == null ? name : id;
     }
 
+    /**
+     * Returns the names of the node and its ancestors, excluding the root.
+     * Builds a new string on each call, {@link NodePaths} should be preferred
+     * for repeated lookups.
+     *
+     * @param node {@linkplain TreeTable.Node} having at least NAME field
+     * @return path of the node
+     */
     public static final String getNodePath(TreeTable.Node node) {
         String path = "";
         do {
@@ -247,39 +220,4 @@ public class Config implements NodeChangeListener {
         } while (node != null && node.getParent() != null);
         return path;
     }
-
-    @Override
-    public void childAdded(NodeChangeEvent evt) {
-        if (evt.getParent() == rootPreferences) {
-            String name = evt.getChild().name();
-            System.out.println("new node " + name);
-            configurations.add(name);
-        }
-    }
-    @Override
-    public void childRemoved(NodeChangeEvent evt) {
-        if (evt.getParent() == rootPreferences) {
-            configurations.remove(evt.getChild().name());
-        }
-    }
-
-    private static class Data {
-
-        int position;
-        boolean expandBydefault, createTreeItem;
-
-        public Data() {
-        }
-
-        public Data(int position, boolean expandBydefault, boolean createTreeItem) {
-            this.position = position;
-            this.expandBydefault = expandBydefault;
-            this.createTreeItem = createTreeItem;
-        }
-        @Override
-        public String toString() {
-            return (expandBydefault ? "+" : "-") + (createTreeItem ? "v" : "h") + position;
-        }
-
-    }
 }
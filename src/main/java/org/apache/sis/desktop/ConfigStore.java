@@ -0,0 +1,295 @@
+package org.apache.sis.desktop;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * Stores the named view configurations of the metadata tables, one binary file
+ * per configuration in {@code ${user.home}/.sis-desktop/configs}. A
+ * configuration maps a node key to its position, expansion and visibility.
+ * Files are written in one go to a temporary file which then replaces the old
+ * one. Configurations found in the {@link Preferences} used by earlier
+ * versions are moved to the store the first time it is used.
+ * <p>
+ * Methods are meant to be called from the JavaFX thread.
+ *
+ * @author Siddhesh Rane
+ */
+public final class ConfigStore {
+
+    private static final int MAGIC = 0x53495356;
+    private static final int FORMAT = 1;
+    private static final String SUFFIX = ".cfg";
+    private static final byte EXPANDED = 1, VISIBLE = 2;
+
+    private static ConfigStore instance;
+
+    /**
+     * Returns the store shared by the whole application, migrating the old
+     * preferences on first call.
+     *
+     * @return the default store
+     */
+    public static synchronized ConfigStore getDefault() {
+        if (instance == null) {
+            Path directory = null;
+            try {
+                directory = MainApp.getApplicationDirectory("configs");
+            } catch (IOException ex) {
+                Logger.getLogger(ConfigStore.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            instance = new ConfigStore(directory);
+            instance.migrate(Preferences.userNodeForPackage(MainApp.class));
+        }
+        return instance;
+    }
+
+    private final Path directory;
+    private final ObservableList<String> names = FXCollections.observableArrayList();
+
+    /**
+     * The view of {@link #names} given to users. There is only one, since the
+     * wrapper listens to the names weakly and listeners added to a discarded
+     * wrapper would stop being called.
+     */
+    private final ObservableList<String> unmodifiableNames = FXCollections.unmodifiableObservableList(names);
+
+    /**
+     * @param directory where configuration files are kept, or {@code null}
+     *                  if none could be created, in which case nothing is
+     *                  persisted
+     */
+    public ConfigStore(Path directory) {
+        this.directory = directory;
+        if (directory != null) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String fileName = file.getFileName().toString();
+                    names.add(decode(fileName.substring(0, fileName.length() - SUFFIX.length())));
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(ConfigStore.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            Collections.sort(names);
+        }
+    }
+
+    /**
+     * @return names of the stored configurations, updated as configurations
+     *         are saved and deleted
+     */
+    public ObservableList<String> getNames() {
+        return unmodifiableNames;
+    }
+
+    /**
+     * Reads a configuration.
+     *
+     * @param name name of the configuration
+     * @return the settings by node key in saved order, empty if there is no
+     *         such configuration or it could not be read
+     */
+    public Map<String, Setting> load(String name) {
+        final Map<String, Setting> settings = new LinkedHashMap<>();
+        final Path file = file(name);
+        if (file == null || !Files.isRegularFile(file)) {
+            return settings;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                Logger.getLogger(ConfigStore.class.getName()).log(Level.WARNING, "Ignoring configuration {0} of unknown format", name);
+                return settings;
+            }
+            for (int n = buffer.getInt(); --n >= 0;) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                int position = buffer.getInt();
+                byte flags = buffer.get();
+                settings.put(new String(key, StandardCharsets.UTF_8), new Setting(position, (flags & EXPANDED) != 0, (flags & VISIBLE) != 0));
+            }
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(ConfigStore.class.getName()).log(Level.WARNING, "Ignoring unreadable configuration " + name, ex);
+            settings.clear();
+        }
+        return settings;
+    }
+
+    /**
+     * Replaces a configuration, or creates it if it does not exist.
+     *
+     * @param name     name of the configuration
+     * @param settings the settings by node key
+     * @return whether the configuration has been written, failures are
+     *         logged
+     */
+    public boolean save(String name, Map<String, Setting> settings) {
+        if (directory == null) {
+            return false;
+        }
+        try {
+            final Path file = file(name);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(settings.size() * 48 + 12);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(settings.size());
+            for (Map.Entry<String, Setting> entry : settings.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                Setting setting = entry.getValue();
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(setting.position);
+                out.writeByte((setting.expanded ? EXPANDED : 0) | (setting.visible ? VISIBLE : 0));
+            }
+            Path tmp = Files.createTempFile(directory, "config", ".tmp");
+            Files.write(tmp, bytes.toByteArray());
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | InvalidPathException ex) {
+            Logger.getLogger(ConfigStore.class.getName()).log(Level.SEVERE, null, ex);
+            return false;
+        }
+        if (!names.contains(name)) {
+            names.add(name);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a configuration.
+     *
+     * @param name name of the configuration
+     */
+    public void delete(String name) {
+        final Path file = file(name);
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            Logger.getLogger(ConfigStore.class.getName()).log(Level.SEVERE, null, ex);
+            return;
+        }
+        names.remove(name);
+    }
+
+    /**
+     * Copies the configurations stored as children of the given preferences
+     * node, in the {@code "+ v 12"} format, then removes them from the
+     * preferences. Configurations already in this store are not overwritten.
+     * A configuration which could not be written is left in the preferences.
+     */
+    private void migrate(Preferences root) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            for (String name : root.childrenNames()) {
+                Preferences pref = root.node(name);
+                if (!names.contains(name)) {
+                    Map<String, Setting> settings = new LinkedHashMap<>();
+                    for (String key : pref.keys()) {
+                        String[] split = pref.get(key, "+ v 0").split("\\s+");
+                        settings.put(key, new Setting(Integer.parseInt(split[2]), "+".equals(split[0]), "v".equals(split[1])));
+                    }
+                    if (!save(name, settings)) {
+                        continue;
+                    }
+                }
+                pref.removeNode();
+            }
+            root.flush();
+        } catch (BackingStoreException | RuntimeException ex) {
+            Logger.getLogger(ConfigStore.class.getName()).log(Level.WARNING, "Could not migrate configurations from preferences", ex);
+        }
+    }
+
+    private Path file(String name) {
+        return directory == null ? null : directory.resolve(encode(name) + SUFFIX);
+    }
+
+    /**
+     * Configuration names are chosen by the user, so they are escaped to be
+     * safe as file names.
+     */
+    private static String encode(String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8").replace("*", "%2A");
+        } catch (UnsupportedEncodingException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    private static String decode(String fileName) {
+        try {
+            return URLDecoder.decode(fileName, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    /**
+     * How a node is shown by a configuration.
+     */
+    public static final class Setting {
+
+        private final int position;
+        private final boolean expanded, visible;
+
+        /**
+         * @param position sort position among siblings
+         * @param expanded whether the node is expanded by default
+         * @param visible  whether the node has its own tree item
+         */
+        public Setting(int position, boolean expanded, boolean visible) {
+            this.position = position;
+            this.expanded = expanded;
+            this.visible = visible;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public boolean isExpanded() {
+            return expanded;
+        }
+
+        public boolean isVisible() {
+            return visible;
+        }
+
+        @Override
+        public String toString() {
+            return (expanded ? "+" : "-") + (visible ? "v" : "h") + position;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package org.apache.sis.desktop;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStores;
+
+/**
+ * Content types of files, probed on the background lane of the
+ * {@link TaskScheduler} and remembered by path, size and modification time.
+ * The cache is kept in {@code ${user.home}/.sis-desktop/cache} between runs,
+ * so files dropped again are not probed again unless they changed. Only the
+ * {@value #MAX_ENTRIES} files used most recently are kept.
+ *
+ * @author Siddhesh Rane
+ */
+public final class ContentTypeCache {
+
+    private static final int MAGIC = 0x53495354;
+    private static final int FORMAT = 1;
+    private static final String FILE = "content-types.bin";
+    private static final byte FALLBACK = 1;
+
+    /**
+     * Number of new entries after which the cache is written without waiting
+     * for the application to stop.
+     */
+    private static final int SAVE_THRESHOLD = 256;
+
+    /**
+     * Number of files remembered. Less recently probed files are forgotten
+     * first.
+     */
+    private static final int MAX_ENTRIES = 20000;
+
+    private static ContentTypeCache instance;
+
+    /**
+     * Returns the cache shared by the whole application, reading it from disk
+     * on first call.
+     *
+     * @return the default cache
+     */
+    public static synchronized ContentTypeCache getDefault() {
+        if (instance == null) {
+            Path file = null;
+            try {
+                file = MainApp.getApplicationDirectory("cache").resolve(FILE);
+            } catch (IOException ex) {
+                Logger.getLogger(ContentTypeCache.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            instance = new ContentTypeCache(file);
+        }
+        return instance;
+    }
+
+    private final Path file;
+
+    /**
+     * Content types by path, in access order. Guarded by itself.
+     */
+    private final LinkedHashMap<String, ContentType> entries = new LinkedHashMap<String, ContentType>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ContentType> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Map<String, CompletableFuture<ContentType>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger unsaved = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong probes = new AtomicLong();
+
+    /**
+     * @param file where the cache is kept, or {@code null} for a cache in
+     *             memory only
+     */
+    public ContentTypeCache(Path file) {
+        this.file = file;
+        if (file != null && Files.isRegularFile(file)) {
+            load();
+        }
+    }
+
+    /**
+     * Returns the content type last probed for the given path, without any
+     * I/O. The file may have changed since.
+     *
+     * @param file the file
+     * @return the cached content type, or null
+     */
+    public ContentType peek(File file) {
+        synchronized (entries) {
+            return entries.get(file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Returns the content type of a file. The file attributes are read and,
+     * unless the cache is up to date, the content probed on a worker thread.
+     * Concurrent requests for the same file share the same probe.
+     *
+     * @param file the file to probe
+     * @return the content type, completed on a worker thread
+     */
+    public CompletableFuture<ContentType> probe(File file) {
+        final String key = file.getAbsolutePath();
+        final CompletableFuture<ContentType> future = pending.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(
+                () -> probe(k, file), TaskScheduler.getDefault().executor(TaskScheduler.Lane.BACKGROUND)));
+        //attached once the future is in the map, since the probe may be over already
+        future.whenComplete((type, ex) -> pending.remove(key, future));
+        return future;
+    }
+
+    private ContentType probe(String key, File file) {
+        long size = -1, modified = -1;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            size = attributes.size();
+            modified = attributes.lastModifiedTime().toMillis();
+        } catch (NoSuchFileException ex) {
+            synchronized (entries) {
+                if (entries.remove(key) != null) {
+                    unsaved.incrementAndGet();
+                }
+            }
+            return new ContentType(null, false, size, modified);
+        } catch (IOException ex) {
+            Logger.getLogger(ContentTypeCache.class.getName()).log(Level.WARNING, null, ex);
+        }
+        final ContentType cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.size == size && cached.modified == modified && size >= 0) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        probes.incrementAndGet();
+        String mime = null;
+        boolean fallback = false;
+        try {
+            mime = DataStores.probeContentType(file);
+            if (mime == null) {
+                mime = Files.probeContentType(file.toPath());
+                fallback = mime != null;
+            }
+        } catch (DataStoreException ex) {
+            //not understood by SIS, shown as N/A
+        } catch (IOException ex) {
+            Logger.getLogger(ContentTypeCache.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        ContentType type = new ContentType(mime, fallback, size, modified);
+        if (size >= 0) {
+            final int count;
+            synchronized (entries) {
+                entries.put(key, type);
+                count = entries.size();
+            }
+            //the whole file is written, so saves get rarer as the cache grows
+            if (unsaved.incrementAndGet() >= Math.max(SAVE_THRESHOLD, count / 4)) {
+                TaskScheduler.getDefault().submit(this::save, TaskScheduler.Lane.PREFETCH);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * @return number of files in the cache
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void load() {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file));
+                DataInputStream in = new DataInputStream(stream)) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                Logger.getLogger(ContentTypeCache.class.getName()).log(Level.WARNING, "Ignoring content type cache of unknown format");
+                return;
+            }
+            for (int n = in.readInt(); --n >= 0;) {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte flags = in.readByte();
+                String mime = in.readUTF();
+                synchronized (entries) {
+                    entries.put(key, new ContentType(mime.isEmpty() ? null : mime, (flags & FALLBACK) != 0, size, modified));
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(ContentTypeCache.class.getName()).log(Level.WARNING, "Ignoring unreadable content type cache", ex);
+            synchronized (entries) {
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the cache to disk if it changed, least recently used files
+     * first so that the order is restored on next launch. Can be called from
+     * any thread.
+     */
+    public synchronized void save() {
+        if (file == null || unsaved.get() == 0) {
+            return;
+        }
+        unsaved.set(0);
+        try {
+            Path tmp = Files.createTempFile(file.getParent(), "content-types", ".tmp");
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(tmp));
+                    DataOutputStream out = new DataOutputStream(stream)) {
+                final List<Map.Entry<String, ContentType>> snapshot;
+                synchronized (entries) {
+                    snapshot = new ArrayList<>(entries.size());
+                    for (Map.Entry<String, ContentType> entry : entries.entrySet()) {
+                        snapshot.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                    }
+                }
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, ContentType> entry : snapshot) {
+                    ContentType type = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(type.size);
+                    out.writeLong(type.modified);
+                    out.writeByte(type.fallback ? FALLBACK : 0);
+                    out.writeUTF(type.mime == null ? "" : type.mime);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(ContentTypeCache.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Content types: " + size() + " cached, " + hits.get() + " hits, " + probes.get() + " probed";
+    }
+
+    /**
+     * Result of a probe.
+     */
+    public static final class ContentType {
+
+        private final String mime;
+        private final boolean fallback;
+        private final long size, modified;
+
+        ContentType(String mime, boolean fallback, long size, long modified) {
+            this.mime = mime;
+            this.fallback = fallback;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        /**
+         * @return the MIME type, or null if unknown
+         */
+        public String getMimeType() {
+            return mime;
+        }
+
+        /**
+         * @return true if the type was given by the file system rather than by
+         *         SIS
+         */
+        public boolean isFallback() {
+            return fallback;
+        }
+
+        /**
+         * @return file size in bytes when probed
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return the type as shown in the file listing, with a {@code *} for
+         *         types given by the file system
+         */
+        @Override
+        public String toString() {
+            return mime == null ? "N/A" : fallback ? mime + '*' : mime;
+        }
+    }
+}
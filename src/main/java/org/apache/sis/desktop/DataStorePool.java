@@ -0,0 +1,293 @@
+package org.apache.sis.desktop;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStores;
+import org.opengis.metadata.Metadata;
+
+/**
+ * Shares opened {@link DataStore}s between all views of the same file. Stores
+ * are keyed by canonical path and last modification time, so a file changed
+ * on disk is opened afresh. Every user holds a {@link Handle}; a store is
+ * closed once no handle uses it and it falls out of the small LRU set of idle
+ * stores kept open for quick reopening.
+ *
+ * @author Siddhesh Rane
+ */
+public final class DataStorePool {
+
+    private static final DataStorePool DEFAULT = new DataStorePool(4);
+
+    /**
+     * Returns the pool shared by the whole application.
+     *
+     * @return the default pool
+     */
+    public static DataStorePool getDefault() {
+        return DEFAULT;
+    }
+
+    private final int maxIdle;
+    private final Map<Key, Slot> slots = new HashMap<>();
+    private final LinkedHashMap<Key, Slot> idle = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param maxIdle number of stores without users which are kept open
+     */
+    public DataStorePool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Creates a handle for the given file. No I/O happens until
+     * {@link Handle#getStore()} is invoked, so this method can be called from
+     * the JavaFX thread.
+     *
+     * @param file the file to open
+     * @return a new handle which must be closed when no longer needed
+     */
+    public Handle newHandle(File file) {
+        return new Handle(file);
+    }
+
+    /**
+     * @return number of stores currently open, used or idle
+     */
+    public synchronized int getOpenCount() {
+        return slots.size();
+    }
+
+    /**
+     * Closes all stores, including those still referenced by a handle. To be
+     * called on application shutdown.
+     */
+    public void closeAll() {
+        List<Slot> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(slots.values());
+            slots.clear();
+            idle.clear();
+        }
+        toClose.forEach(Slot::close);
+    }
+
+    private Slot acquire(File file) throws DataStoreException {
+        final Key key = Key.of(file);
+        final Slot slot;
+        final boolean opener;
+        synchronized (this) {
+            Slot existing = slots.get(key);
+            opener = existing == null;
+            slot = opener ? new Slot(key) : existing;
+            if (opener) {
+                slots.put(key, slot);
+            }
+            idle.remove(key);
+            slot.references++;
+        }
+        if (opener) {
+            try {
+                slot.store.complete(DataStores.open(file));
+            } catch (DataStoreException | RuntimeException ex) {
+                synchronized (this) {
+                    slots.remove(key, slot);
+                }
+                slot.store.completeExceptionally(ex);
+            }
+        }
+        try {
+            slot.store.join();
+        } catch (CompletionException ex) {
+            synchronized (this) {
+                slot.references--;
+            }
+            if (ex.getCause() instanceof DataStoreException) {
+                throw (DataStoreException) ex.getCause();
+            }
+            throw new DataStoreException(ex.getCause());
+        }
+        return slot;
+    }
+
+    private void release(Slot slot) {
+        List<Slot> toClose = new ArrayList<>();
+        synchronized (this) {
+            if (--slot.references > 0 || slots.get(slot.key) != slot) {
+                return;
+            }
+            if (maxIdle <= 0 || !slot.key.equals(Key.of(slot.key.file))) {
+                slots.remove(slot.key);
+                toClose.add(slot);
+            } else {
+                idle.put(slot.key, slot);
+                for (Iterator<Slot> it = idle.values().iterator(); idle.size() > maxIdle && it.hasNext();) {
+                    Slot eldest = it.next();
+                    it.remove();
+                    slots.remove(eldest.key);
+                    toClose.add(eldest);
+                }
+            }
+        }
+        toClose.forEach(Slot::close);
+    }
+
+    /**
+     * A reference to a pooled store. The store is opened on the first call to
+     * {@link #getStore()} and given back to the pool by {@link #close()}.
+     * Users must not close the store themselves.
+     */
+    public final class Handle implements AutoCloseable {
+
+        private final File file;
+        private Slot slot;
+        private boolean closed;
+
+        private Handle(File file) {
+            this.file = file;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Returns the store, opening it if no other handle did already. This
+         * method may block and must not be called from the JavaFX thread.
+         *
+         * @return the shared store
+         * @throws DataStoreException if the store could not be opened or this
+         *                            handle has been closed
+         */
+        public DataStore getStore() throws DataStoreException {
+            synchronized (this) {
+                if (closed) {
+                    throw new DataStoreException("Handle for " + file + " is closed.");
+                }
+                if (slot != null) {
+                    return slot.store.join();
+                }
+            }
+            Slot acquired = acquire(file);
+            synchronized (this) {
+                if (!closed && slot == null) {
+                    slot = acquired;
+                    return slot.store.join();
+                }
+            }
+            release(acquired);
+            return getStore();
+        }
+
+        /**
+         * Returns the store if this handle has opened it already, without
+         * opening it otherwise. Does no I/O.
+         *
+         * @return the shared store, or {@code null} if {@link #getStore()}
+         *         has not succeeded yet or this handle has been closed
+         */
+        public synchronized DataStore peekStore() {
+            return slot == null ? null : slot.store.getNow(null);
+        }
+
+        /**
+         * Returns the metadata of the store. Calls are serialized on the store
+         * since stores are shared between threads.
+         *
+         * @return the store metadata
+         * @throws DataStoreException if the store could not be opened or read
+         */
+        public Metadata getMetadata() throws DataStoreException {
+            DataStore store = getStore();
+            synchronized (store) {
+                return store.getMetadata();
+            }
+        }
+
+        /**
+         * Gives the store back to the pool. Can be called from any thread and
+         * more than once.
+         */
+        @Override
+        public void close() {
+            Slot s;
+            synchronized (this) {
+                closed = true;
+                s = slot;
+                slot = null;
+            }
+            if (s != null) {
+                release(s);
+            }
+        }
+    }
+
+    private static final class Slot {
+
+        final Key key;
+        final CompletableFuture<DataStore> store = new CompletableFuture<>();
+        int references;
+
+        Slot(Key key) {
+            this.key = key;
+        }
+
+        void close() {
+            DataStore ds = store.getNow(null);
+            if (ds != null) {
+                try {
+                    ds.close();
+                } catch (DataStoreException ex) {
+                    Logger.getLogger(DataStorePool.class.getName()).log(Level.WARNING, null, ex);
+                }
+            }
+        }
+    }
+
+    private static final class Key {
+
+        final File file;
+        final long lastModified;
+
+        private Key(File file, long lastModified) {
+            this.file = file;
+            this.lastModified = lastModified;
+        }
+
+        static Key of(File file) {
+            File canonical;
+            try {
+                canonical = file.getCanonicalFile();
+            } catch (IOException ex) {
+                canonical = file.getAbsoluteFile();
+            }
+            return new Key(canonical, canonical.lastModified());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return lastModified == other.lastModified && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, lastModified);
+        }
+    }
+}
@@ -1,29 +1,31 @@
 package org.apache.sis.desktop;
 
+import com.esri.core.geometry.Envelope2D;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.text.Text;
 import org.apache.sis.desktop.crs.CRSEditor;
+import org.apache.sis.desktop.track.TrackLoader;
 import org.apache.sis.internal.storage.FeatureStore;
 import org.apache.sis.storage.DataStore;
 import org.apache.sis.storage.DataStoreException;
-import org.apache.sis.storage.DataStores;
 import org.opengis.feature.Feature;
 import org.opengis.feature.FeatureType;
 import org.opengis.feature.PropertyType;
@@ -38,35 +40,125 @@ public class FeatureEditor extends TabPane implements Initializable {
     private TableView waypoints;
     @FXML
     private WaypointTableController waypointsController;
+    @FXML
+    private Label featureCount;
+    @FXML
+    private Button loadMoreButton;
+    @FXML
+    private Button stopButton;
+    @FXML
+    private TextField boxFilter;
+    @FXML
+    private TrackTableController routesController;
+    @FXML
+    private TrackTableController tracksController;
+    private FeaturePager pager;
+    private TrackLoader trackLoader;
+
+    /**
+     * Number of features added to the table at once.
+     */
+    private static final int PAGE_SIZE = 1000;
+
+    /**
+     * Maximum number of features kept in the table, so that huge files do not
+     * exhaust the heap.
+     */
+    private static final int WINDOW = Integer.getInteger("sis.desktop.featureWindow", 100000);
 
     public FeatureEditor(File file) {
         loadFXML();
-        Runnable featureLoader = () -> {
-            try (DataStore datastore = DataStores.open(file);) {
+        DataStorePool.Handle handle = DataStorePool.getDefault().newHandle(file);
+        pager = new FeaturePager(handle, (t) -> {
+            return t.getType().getName().toString().contains("WayPoint");
+        }, waypointsController.getWaypoints(), PAGE_SIZE, WINDOW);
+        featureCount.textProperty().bind(Bindings.createStringBinding(() -> {
+            long start = pager.windowStartProperty().get();
+            PointTableModel rows = waypointsController.getWaypoints();
+            int loaded = rows.getColumns().size();
+            String text = loaded == 0 ? "No features" : "Features " + (start + 1) + " to " + (start + loaded);
+            if (rows.getBoxFilter() != null) {
+                text += ", " + rows.size() + " in box";
+            }
+            if (pager.runningProperty().get()) {
+                text += ", loading...";
+            } else if (pager.moreAvailableProperty().get()) {
+                text += ", more available";
+            }
+            String error = pager.errorProperty().get();
+            return error == null ? text : text + " (" + error + ")";
+        }, pager.windowStartProperty(), pager.runningProperty(), pager.moreAvailableProperty(),
+                pager.errorProperty(), waypointsController.getWaypoints()));
+        loadMoreButton.disableProperty().bind(pager.moreAvailableProperty().not());
+        stopButton.disableProperty().bind(pager.runningProperty().not());
+        pager.runningProperty().addListener((observable, oldValue, running) -> {
+            if (!running) {
+                waypoints.setPlaceholder(new Label("No features"));
+            }
+        });
+        boxFilter.textProperty().addListener(ob -> applyBoxFilter());
+        pager.start();
+        trackLoader = new TrackLoader(DataStorePool.getDefault().newHandle(file),
+                routesController.getSegments(), tracksController.getSegments());
+        trackLoader.start();
+    }
 
-                if (!(datastore instanceof FeatureStore)) {
-                    System.out.println(file.getName() + " not a feature store");
+    /**
+     * Stops loading features and gives the file back to the
+     * {@link DataStorePool}. To be called when this editor is no longer
+     * displayed.
+     */
+    public void dispose() {
+        if (pager != null) {
+            pager.cancel();
+        }
+        if (trackLoader != null) {
+            trackLoader.cancel();
+        }
+    }
+
+    /**
+     * Restricts the waypoint table to the box typed as "west, south, east,
+     * north" in degrees. An empty text shows all waypoints, an incomplete one
+     * is ignored until the box is complete.
+     */
+    private void applyBoxFilter() {
+        String text = boxFilter.getText().trim();
+        PointTableModel rows = waypointsController.getWaypoints();
+        if (text.isEmpty()) {
+            boxFilter.setStyle(null);
+            if (rows.getBoxFilter() != null) {
+                rows.setBoxFilter(null);
+            }
+            return;
+        }
+        String[] bounds = text.split("[,;\\s]+");
+        if (bounds.length == 4) {
+            try {
+                double west = Double.parseDouble(bounds[0]);
+                double south = Double.parseDouble(bounds[1]);
+                double east = Double.parseDouble(bounds[2]);
+                double north = Double.parseDouble(bounds[3]);
+                if (south <= north) {
+                    boxFilter.setStyle(null);
+                    rows.setBoxFilter(new Envelope2D(west, south, east, north));
                     return;
                 }
-                FeatureStore store = (FeatureStore) datastore;
-                loadFeatures(store);
-            } catch (DataStoreException ex) {
-                System.out.println("ex = " + ex);
-                Logger.getLogger(FeatureEditor.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (NumberFormatException ex) {
+                //shown as invalid below
             }
-        };
-        Thread thread = new Thread(featureLoader);
-        thread.setDaemon(true);
-        thread.start();
+        }
+        boxFilter.setStyle("-fx-text-fill: red;");
     }
 
-    private void loadFeatures(FeatureStore store) throws DataStoreException {
-        Stream<Feature> features = store.features();
-        List<Feature> list = features.filter((t) -> {
-            return t.getType().getName().toString().contains("WayPoint");
-        }).collect(Collectors.toList());
-        System.out.println("list = " + list);
-        Platform.runLater(() -> waypointsController.getWaypoints().setAll(list));
+    @FXML
+    private void loadMore() {
+        pager.loadMore();
+    }
+
+    @FXML
+    private void stopLoading() {
+        pager.cancel();
     }
 
     public FeatureEditor(FeatureStore store) {
@@ -86,8 +178,8 @@ public class FeatureEditor extends TabPane implements Initializable {
     }
 
     public static void loadFile(File file) {
-        try (DataStore datastore = DataStores.open(file);) {
-
+        try (DataStorePool.Handle handle = DataStorePool.getDefault().newHandle(file)) {
+            DataStore datastore = handle.getStore();
             if (!(datastore instanceof FeatureStore)) {
                 System.out.println(file.getName() + " not a feature store");
                 return;
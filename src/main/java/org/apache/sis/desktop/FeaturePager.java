@@ -0,0 +1,239 @@
+package org.apache.sis.desktop;
+
+import java.util.Iterator;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import org.apache.sis.internal.storage.FeatureStore;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.opengis.feature.Feature;
+
+/**
+ * Reads the point features of a store page by page and appends their values
+ * to the columns shown by a table. Each page is read by a scheduler task,
+ * which reads a fixed number of features whatever the filter keeps, and
+ * the next page is requested only once the previous one has been added to the
+ * table, so reading never runs ahead of the JavaFX thread. At most
+ * {@code window} rows are kept: when the window is full, reading pauses until
+ * {@link #loadMore()} replaces the table content with the following window.
+ * <p>
+ * All methods must be called from the JavaFX thread.
+ *
+ * @author Siddhesh Rane
+ */
+public final class FeaturePager {
+
+    private final DataStorePool.Handle handle;
+    private final Predicate<Feature> filter;
+    private final PointTableModel target;
+    private final int pageSize;
+    private final int window;
+
+    /*
+     * Accessed by one task at a time, under the lock of the store.
+     */
+    private Stream<Feature> stream;
+    private Iterator<Feature> iterator;
+
+    private Future<?> task;
+    private volatile boolean cancelled;
+
+    private final ReadOnlyBooleanWrapper running = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyBooleanWrapper moreAvailable = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyLongWrapper loaded = new ReadOnlyLongWrapper(0);
+    private final ReadOnlyLongWrapper windowStart = new ReadOnlyLongWrapper(0);
+    private final ReadOnlyStringWrapper error = new ReadOnlyStringWrapper();
+
+    /**
+     * @param handle   the store to read, closed by {@link #cancel()}
+     * @param filter   features to keep
+     * @param target   the rows receiving the features
+     * @param pageSize number of features read from the store at once, the
+     *                 rows added to the table being those which pass the
+     *                 filter
+     * @param window   maximum number of rows in the table
+     */
+    public FeaturePager(DataStorePool.Handle handle, Predicate<Feature> filter, PointTableModel target, int pageSize, int window) {
+        this.handle = handle;
+        this.filter = filter;
+        this.target = target;
+        this.pageSize = pageSize;
+        this.window = Math.max(window, pageSize);
+    }
+
+    /**
+     * @return true while pages are being read
+     */
+    public ReadOnlyBooleanProperty runningProperty() {
+        return running.getReadOnlyProperty();
+    }
+
+    /**
+     * @return true if reading paused because the window is full
+     */
+    public ReadOnlyBooleanProperty moreAvailableProperty() {
+        return moreAvailable.getReadOnlyProperty();
+    }
+
+    /**
+     * @return number of features read so far, including those of previous
+     *         windows
+     */
+    public ReadOnlyLongProperty loadedProperty() {
+        return loaded.getReadOnlyProperty();
+    }
+
+    /**
+     * @return number of features read before the first row of the table
+     */
+    public ReadOnlyLongProperty windowStartProperty() {
+        return windowStart.getReadOnlyProperty();
+    }
+
+    /**
+     * @return message of the exception which stopped reading, or null
+     */
+    public ReadOnlyStringProperty errorProperty() {
+        return error.getReadOnlyProperty();
+    }
+
+    /**
+     * Starts reading the first window.
+     */
+    public void start() {
+        if (!cancelled && !running.get() && task == null) {
+            scheduleNextPage();
+        }
+    }
+
+    /**
+     * Replaces the content of the table with the next window of features.
+     */
+    public void loadMore() {
+        if (cancelled || running.get() || !moreAvailable.get()) {
+            return;
+        }
+        windowStart.set(loaded.get());
+        target.clear();
+        moreAvailable.set(false);
+        scheduleNextPage();
+    }
+
+    /**
+     * Stops reading and releases the store. Rows already in the table are
+     * left there.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        running.set(false);
+        moreAvailable.set(false);
+        if (task != null) {
+            TaskScheduler.getDefault().cancel(task);
+        }
+        //the stream is closed under the store lock, after any page being read
+        TaskScheduler.getDefault().submit(() -> {
+            try {
+                closeStream();
+            } finally {
+                handle.close();
+            }
+        }, TaskScheduler.Lane.BACKGROUND);
+    }
+
+    private void scheduleNextPage() {
+        running.set(true);
+        task = TaskScheduler.getDefault().submit(this::readPage, TaskScheduler.Lane.FOREGROUND);
+    }
+
+    /**
+     * Reads one page on a worker thread and hands it to the JavaFX thread.
+     * The page may be partial, or even empty, if few features pass the filter.
+     */
+    private void readPage() {
+        final PointColumns page = target.getColumns().newPage(pageSize);
+        boolean end = false;
+        String failure = null;
+        try {
+            DataStore datastore = handle.getStore();
+            if (!(datastore instanceof FeatureStore)) {
+                failure = handle.getFile().getName() + " is not a feature store";
+                end = true;
+            } else {
+                synchronized (datastore) {
+                    if (iterator == null) {
+                        stream = ((FeatureStore) datastore).features();
+                        iterator = stream.iterator();
+                    }
+                    //bounded by features read, not kept, so that the lock is released often when few pass the filter
+                    for (int read = 0; read < pageSize && !cancelled; read++) {
+                        if (!iterator.hasNext()) {
+                            end = true;
+                            break;
+                        }
+                        Feature feature = iterator.next();
+                        if (filter.test(feature)) {
+                            page.add(feature);
+                        }
+                    }
+                    if (end) {
+                        closeStream();
+                    }
+                }
+            }
+        } catch (DataStoreException | RuntimeException ex) {
+            Logger.getLogger(FeaturePager.class.getName()).log(Level.SEVERE, null, ex);
+            failure = ex.toString();
+            end = true;
+        }
+        final boolean finished = end;
+        final String message = failure;
+        Platform.runLater(() -> publish(page, finished, message));
+    }
+
+    private void publish(PointColumns page, boolean end, String message) {
+        if (cancelled) {
+            return;
+        }
+        target.append(page);
+        loaded.set(loaded.get() + page.size());
+        if (message != null) {
+            error.set(message);
+        }
+        if (end) {
+            running.set(false);
+        } else if (target.getColumns().size() >= window) {
+            running.set(false);
+            moreAvailable.set(true);
+        } else {
+            scheduleNextPage();
+        }
+    }
+
+    private void closeStream() {
+        final DataStore datastore = handle.peekStore();
+        if (datastore == null) {
+            //the store was never opened, hence there is no stream
+            return;
+        }
+        synchronized (datastore) {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+                iterator = null;
+            }
+        }
+    }
+}
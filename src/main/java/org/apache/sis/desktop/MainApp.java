@@ -1,12 +1,17 @@
 package org.apache.sis.desktop;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javafx.application.Application;
 import static javafx.application.Application.launch;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.apache.sis.desktop.crs.CrsSnapshotStore;
 
 
 public class MainApp extends Application {
@@ -23,6 +28,28 @@ public class MainApp extends Application {
         stage.show();
     }
 
+    /**
+     * Returns a directory for caches and settings of this application, under
+     * {@code ${user.home}/.sis-desktop}. The directory is created if needed.
+     *
+     * @param name name of the sub directory
+     * @return the directory
+     * @throws IOException if the directory could not be created
+     */
+    public static Path getApplicationDirectory(String name) throws IOException {
+        Path dir = Paths.get(System.getProperty("user.home"), ".sis-desktop", name);
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    @Override
+    public void stop() throws Exception {
+        DataStorePool.getDefault().closeAll();
+        ContentTypeCache.getDefault().save();
+        MetadataDiskCache.getDefault().save();
+        CrsSnapshotStore.getDefault().save();
+    }
+
     
     
     /**
@@ -0,0 +1,338 @@
+package org.apache.sis.desktop;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.sis.desktop.metadata.MetadataSummary;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStores;
+import org.apache.sis.storage.UnsupportedStorageException;
+import org.opengis.metadata.Metadata;
+
+/**
+ * Headless extraction of metadata summaries. Walks the given directories,
+ * reads the metadata of every file SIS can open using several threads, and
+ * writes one record per file as JSON Lines or CSV. Progress and throughput
+ * are reported on the standard error stream.
+ * <p>
+ * Usage:
+ * {@code MetadataBatch [--format jsonl|csv] [--threads N] [--output FILE] DIRECTORY...}
+ *
+ * @author Siddhesh Rane
+ */
+public final class MetadataBatch {
+
+    private static final String[] CSV_HEADER = {"file", "title", "abstract", "north", "south", "east", "west",
+        "representation", "crs", "dimensions", "error"};
+
+    private final Writer out;
+    private final boolean csv;
+    private final int threads;
+    private final AtomicInteger found = new AtomicInteger();
+    private final AtomicInteger extracted = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * First failure to write the output. Once set, the walk stops and
+     * {@link #run} throws it.
+     */
+    private final AtomicReference<IOException> writeError = new AtomicReference<>();
+
+    /**
+     * @param out     where records are written
+     * @param csv     {@code true} for CSV, {@code false} for JSON Lines
+     * @param threads number of files read concurrently
+     */
+    public MetadataBatch(Writer out, boolean csv, int threads) {
+        this.out = out;
+        this.csv = csv;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String format = "jsonl";
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = null;
+        List<Path> roots = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format":
+                    format = args[++i].toLowerCase(Locale.ROOT);
+                    break;
+                case "--threads":
+                    threads = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--output":
+                    output = Paths.get(args[++i]);
+                    break;
+                default:
+                    roots.add(Paths.get(args[i]));
+            }
+        }
+        if (roots.isEmpty() || !(format.equals("jsonl") || format.equals("csv"))) {
+            System.err.println("Usage: MetadataBatch [--format jsonl|csv] [--threads N] [--output FILE] DIRECTORY...");
+            System.exit(2);
+        }
+        try (Writer writer = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            new MetadataBatch(writer, format.equals("csv"), threads).run(roots);
+        } catch (IOException ex) {
+            System.err.println("Failed: " + ex);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Processes all files below the given roots and waits for completion.
+     *
+     * @param roots files or directories to process
+     * @throws IOException if a directory could not be walked or the output
+     *                     could not be written, in which case the walk stops
+     *                     at the first write failure
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run(List<Path> roots) throws IOException, InterruptedException {
+        if (csv) {
+            writeRecord(String.join(",", CSV_HEADER));
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "metadata-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //bounds the number of files waiting in the pool while the walk goes on
+        final Semaphore inFlight = new Semaphore(threads * 4);
+        final long start = System.nanoTime();
+        final Thread progress = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(1000);
+                    report(start, false);
+                }
+            } catch (InterruptedException ex) {
+                //done
+            }
+        }, "metadata-batch progress");
+        progress.setDaemon(true);
+        progress.start();
+        try {
+            for (Path root : roots) {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        if (writeError.get() != null) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                        if (attrs.isRegularFile()) {
+                            found.incrementAndGet();
+                            try {
+                                inFlight.acquire();
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                                return FileVisitResult.TERMINATE;
+                            }
+                            pool.execute(() -> {
+                                try {
+                                    process(file);
+                                } finally {
+                                    inFlight.release();
+                                }
+                            });
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        System.err.println("Cannot read " + file + ": " + exc);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            progress.interrupt();
+            out.flush();
+        }
+        report(start, true);
+        IOException error = writeError.get();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void process(Path file) {
+        if (writeError.get() != null) {
+            //the output is broken, files still queued are not read
+            return;
+        }
+        MetadataSummary summary = null;
+        String error = null;
+        DataStore store = null;
+        try {
+            store = DataStores.open(file.toFile());
+            Metadata metadata = store.getMetadata();
+            summary = MetadataSummary.of(MetadataSummary.createTreeTable(metadata));
+        } catch (UnsupportedStorageException ex) {
+            skipped.incrementAndGet();
+            return;
+        } catch (DataStoreException | RuntimeException ex) {
+            error = ex.toString();
+        } finally {
+            if (store != null) {
+                try {
+                    store.close();
+                } catch (DataStoreException ex) {
+                    //the metadata has been read already
+                }
+            }
+        }
+        (error == null ? extracted : failed).incrementAndGet();
+        try {
+            writeRecord(csv ? toCSV(file, summary, error) : toJSON(file, summary, error));
+        } catch (IOException ex) {
+            writeError.compareAndSet(null, ex);
+        }
+    }
+
+    private void writeRecord(String record) throws IOException {
+        synchronized (out) {
+            out.write(record);
+            out.write('\n');
+        }
+    }
+
+    private void report(long start, boolean done) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int processed = extracted.get() + skipped.get() + failed.get();
+        System.err.println(String.format(Locale.ROOT, "%s%d/%d files, %d extracted, %d skipped, %d failed, %.1f files/s",
+                done ? "Done: " : "", processed, found.get(), extracted.get(), skipped.get(), failed.get(),
+                seconds > 0 ? processed / seconds : 0));
+    }
+
+    private static String dimensions(MetadataSummary summary) {
+        StringBuilder sb = new StringBuilder();
+        List<String> names = summary.getDimensionNames();
+        List<String> sizes = summary.getDimensionSizes();
+        for (int i = 0; i < names.size(); i++) {
+            if (i != 0) {
+                sb.append(' ');
+            }
+            sb.append(names.get(i)).append('=').append(sizes.get(i));
+        }
+        return sb.toString();
+    }
+
+    private static String toCSV(Path file, MetadataSummary s, String error) {
+        String[] values = s == null
+                ? new String[]{file.toString(), null, null, null, null, null, null, null, null, null, error}
+                : new String[]{file.toString(), s.getTitle(), s.getAbstract(), s.getNorthBound(), s.getSouthBound(),
+                    s.getEastBound(), s.getWestBound(), s.getSpatialRepresentationType(), s.getReferenceSystem(),
+                    dimensions(s), error};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            String value = values[i];
+            if (value != null) {
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                    sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+                } else {
+                    sb.append(value);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String toJSON(Path file, MetadataSummary s, String error) {
+        StringBuilder sb = new StringBuilder("{");
+        field(sb, "file", file.toString());
+        if (s != null) {
+            field(sb, "title", s.getTitle());
+            field(sb, "abstract", s.getAbstract());
+            if (s.hasBounds()) {
+                sb.append(",\"bounds\":{");
+                int mark = sb.length();
+                field(sb, "north", s.getNorthBound());
+                field(sb, "south", s.getSouthBound());
+                field(sb, "east", s.getEastBound());
+                field(sb, "west", s.getWestBound());
+                sb.deleteCharAt(mark).append('}');
+            }
+            field(sb, "representation", s.getSpatialRepresentationType());
+            field(sb, "crs", s.getReferenceSystem());
+            sb.append(",\"dimensions\":[");
+            for (int i = 0; i < s.getDimensionNames().size(); i++) {
+                sb.append(i == 0 ? "{" : ",{");
+                int mark = sb.length();
+                field(sb, "name", s.getDimensionNames().get(i));
+                field(sb, "size", s.getDimensionSizes().get(i));
+                sb.deleteCharAt(mark).append('}');
+            }
+            sb.append(']');
+        }
+        field(sb, "error", error);
+        return sb.deleteCharAt(1).append('}').toString();
+    }
+
+    /**
+     * Appends {@code ,"name":"value"}, or nothing if the value is null. The
+     * caller removes the comma before the first field of an object.
+     */
+    private static void field(StringBuilder sb, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        sb.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
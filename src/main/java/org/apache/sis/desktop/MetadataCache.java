@@ -0,0 +1,312 @@
+package org.apache.sis.desktop;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.desktop.metadata.MetadataSummary;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.collection.TreeTable;
+import org.opengis.metadata.Metadata;
+
+/**
+ * Metadata already read from files, with their summary, so that opening a
+ * metadata tab does not read the file again. Files can be read ahead of time
+ * by {@link #prefetch(File)} on the prefetch lane of the {@link TaskScheduler}.
+ * Entries are evicted in least recently used order once their estimated size
+ * exceeds the budget given by the {@code sis.desktop.metadataCacheMB} system
+ * property, 64 MB by default. An entry is ignored if its file has been
+ * modified since it was read. Metadata not in memory are looked for in the
+ * {@link MetadataDiskCache} before the file is opened.
+ *
+ * @author Siddhesh Rane
+ */
+public final class MetadataCache {
+
+    /**
+     * Rough memory used by one node of a metadata tree, used to estimate the
+     * size of an entry.
+     */
+    private static final int BYTES_PER_NODE = 512;
+
+    private static final MetadataCache DEFAULT = new MetadataCache(
+            Long.getLong("sis.desktop.metadataCacheMB", 64) * 1024 * 1024);
+
+    /**
+     * Returns the cache shared by the whole application.
+     *
+     * @return the default cache
+     */
+    public static MetadataCache getDefault() {
+        return DEFAULT;
+    }
+
+    private final long budget;
+    private final LinkedHashMap<File, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<File, Prefetch> prefetching = new ConcurrentHashMap<>();
+    private long weight;
+    private long hits, misses, evictions, prefetched;
+
+    /**
+     * @param budget estimated number of bytes the cached metadata may use
+     */
+    public MetadataCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the metadata of the file of the given handle, from the cache if
+     * possible, otherwise read from the store and cached. This method may
+     * block and must not be called from the JavaFX thread.
+     *
+     * @param handle the file to read
+     * @return the metadata
+     * @throws DataStoreException if the metadata could not be read
+     */
+    public Metadata getMetadata(DataStorePool.Handle handle) throws DataStoreException {
+        return get(handle).metadata;
+    }
+
+    /**
+     * Same as {@link #getMetadata(DataStorePool.Handle)} but returns the
+     * summary.
+     *
+     * @param handle the file to read
+     * @return the summary of the metadata
+     * @throws DataStoreException if the metadata could not be read
+     */
+    public MetadataSummary getSummary(DataStorePool.Handle handle) throws DataStoreException {
+        return get(handle).summary;
+    }
+
+    /**
+     * Same as {@link #getMetadata(DataStorePool.Handle)} but returns the tree
+     * view from which the summary was extracted, as expected by
+     * {@link org.apache.sis.desktop.metadata.SummaryView}.
+     *
+     * @param handle the file to read
+     * @return tree view of the metadata
+     * @throws DataStoreException if the metadata could not be read
+     */
+    public TreeTable getSummaryTree(DataStorePool.Handle handle) throws DataStoreException {
+        return get(handle).tree;
+    }
+
+    private Entry get(DataStorePool.Handle handle) throws DataStoreException {
+        File file = handle.getFile();
+        long modified = file.lastModified();
+        Entry entry = lookup(file, modified);
+        if (entry == null) {
+            entry = awaitPrefetch(file, modified);
+        }
+        if (entry != null) {
+            synchronized (this) {
+                hits++;
+            }
+            return entry;
+        }
+        synchronized (this) {
+            misses++;
+        }
+        return read(handle, modified, null);
+    }
+
+    /**
+     * Waits for the prefetch of the file if one is reading it, so that a tab
+     * opened just after a drop does not read the file a second time. A
+     * prefetch still waiting for a worker is cancelled instead, the caller
+     * then reads the file itself at its own priority.
+     *
+     * @return the metadata read by the prefetch, or null if the caller has to
+     *         read the file
+     */
+    private Entry awaitPrefetch(File file, long modified) {
+        Prefetch prefetch = prefetching.get(file);
+        if (prefetch == null) {
+            return null;
+        }
+        if (prefetch.started.compareAndSet(false, true)) {
+            prefetching.remove(file, prefetch);
+            Future<?> task = prefetch.task;
+            if (task != null) {
+                TaskScheduler.getDefault().cancel(task);
+            }
+            return null;
+        }
+        //completed with null if the prefetch failed, the caller then reports the error
+        Entry entry = prefetch.result.join();
+        return entry != null && entry.modified == modified ? entry : null;
+    }
+
+    private synchronized Entry lookup(File file, long modified) {
+        Entry entry = entries.get(file);
+        if (entry != null && entry.modified != modified) {
+            remove(file);
+            entry = null;
+        }
+        return entry;
+    }
+
+    /**
+     * @param owner the prefetch reading the file, or null if the caller waits
+     *              for the metadata
+     */
+    private Entry read(DataStorePool.Handle handle, long modified, Prefetch owner) throws DataStoreException {
+        //the store is opened only if the metadata are not on disk
+        MetadataDiskCache disk = MetadataDiskCache.getDefault();
+        //taken before reading, so that a file changed meanwhile is not cached with old metadata
+        MetadataDiskCache.Key key = MetadataDiskCache.Key.of(handle.getFile());
+        Metadata metadata = disk.get(handle.getFile(), key);
+        if (metadata == null) {
+            metadata = handle.getMetadata();
+            disk.put(handle.getFile(), key, metadata);
+        }
+        TreeTable tree = MetadataSummary.createTreeTable(metadata);
+        Entry entry = new Entry(metadata, tree, MetadataSummary.of(tree), modified, (long) count(tree.getRoot()) * BYTES_PER_NODE);
+        synchronized (this) {
+            //reading can not be interrupted, a prefetch evicted meanwhile must not add the file back
+            if (owner == null || prefetching.get(handle.getFile()) == owner) {
+                put(handle.getFile(), entry);
+            }
+        }
+        return entry;
+    }
+
+    private static int count(TreeTable.Node node) {
+        int n = 1;
+        if (!node.isLeaf()) {
+            for (TreeTable.Node child : node.getChildren()) {
+                n += count(child);
+            }
+        }
+        return n;
+    }
+
+    private synchronized void put(File file, Entry entry) {
+        remove(file);
+        entries.put(file, entry);
+        weight += entry.weight;
+        for (Iterator<Entry> it = entries.values().iterator(); weight > budget && it.hasNext();) {
+            Entry eldest = it.next();
+            if (eldest == entry) {
+                break;
+            }
+            it.remove();
+            weight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    private void remove(File file) {
+        Entry old = entries.remove(file);
+        if (old != null) {
+            weight -= old.weight;
+        }
+    }
+
+    /**
+     * Reads the metadata of a file in the background if it is not cached
+     * already. Does nothing if a prefetch of that file is in progress.
+     *
+     * @param file the file to read
+     */
+    public void prefetch(File file) {
+        synchronized (this) {
+            if (entries.containsKey(file)) {
+                return;
+            }
+        }
+        Prefetch prefetch = new Prefetch(file);
+        //in the map before it runs, so that it can tell whether it has been evicted
+        if (prefetching.putIfAbsent(file, prefetch) == null) {
+            prefetch.task = TaskScheduler.getDefault().submit(prefetch, TaskScheduler.Lane.PREFETCH);
+        }
+    }
+
+    /**
+     * Cancels the prefetch of a file and forgets its metadata, when the file
+     * is no longer listed.
+     *
+     * @param file the file to forget
+     */
+    public void evict(File file) {
+        Prefetch prefetch = prefetching.remove(file);
+        if (prefetch != null && prefetch.task != null) {
+            TaskScheduler.getDefault().cancel(prefetch.task);
+        }
+        synchronized (this) {
+            remove(file);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Metadata cache: %d files, %.1f of %d MB, %d hits, %d misses, %d prefetched, %d evicted, %d prefetching",
+                entries.size(), weight / (1024 * 1024.0), budget / (1024 * 1024), hits, misses, prefetched, evictions, prefetching.size());
+    }
+
+    /**
+     * Reading of a file ahead of time. Its metadata are cached only if it is
+     * still the prefetch of that file when reading completes. Whoever sets
+     * {@link #started} first, the prefetch or a caller of {@link #get}, reads
+     * the file.
+     */
+    private final class Prefetch implements Runnable {
+
+        final File file;
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<Entry> result = new CompletableFuture<>();
+        volatile Future<?> task;
+
+        Prefetch(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true) || prefetching.get(file) != this) {
+                return;
+            }
+            Entry entry = null;
+            try (DataStorePool.Handle handle = DataStorePool.getDefault().newHandle(file)) {
+                long modified = file.lastModified();
+                entry = lookup(file, modified);
+                if (entry == null) {
+                    entry = read(handle, modified, this);
+                    synchronized (MetadataCache.this) {
+                        prefetched++;
+                    }
+                }
+            } catch (DataStoreException | RuntimeException ex) {
+                //the file will be read again, and the error reported, if the user opens it
+                Logger.getLogger(MetadataCache.class.getName()).log(Level.FINE, "Cannot prefetch " + file, ex);
+            } finally {
+                prefetching.remove(file, this);
+                result.complete(entry);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        final Metadata metadata;
+        final TreeTable tree;
+        final MetadataSummary summary;
+        final long modified;
+        final long weight;
+
+        Entry(Metadata metadata, TreeTable tree, MetadataSummary summary, long modified, long weight) {
+            this.metadata = metadata;
+            this.tree = tree;
+            this.summary = summary;
+            this.modified = modified;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package org.apache.sis.desktop;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.bind.JAXBException;
+import org.apache.sis.io.wkt.Convention;
+import org.apache.sis.io.wkt.WKTFormat;
+import org.apache.sis.metadata.MetadataStandard;
+import org.apache.sis.metadata.iso.DefaultMetadata;
+import org.apache.sis.util.ComparisonMode;
+import org.apache.sis.xml.XML;
+import org.opengis.metadata.Metadata;
+import org.opengis.referencing.ReferenceSystem;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * ISO 19115 metadata of files, kept on disk between runs as XML documents in
+ * {@code ${user.home}/.sis-desktop/cache/metadata}. An entry is used only if
+ * the file still has the same size, modification time and hash of its first
+ * bytes, so files can be opened without asking SIS to open a data store.
+ * ISO 19139 keeps only the identifier of a reference system, so the CRS of
+ * the metadata are kept as WKT in the index and put back when a document is
+ * read. Metadata which still do not read back equal to those given by the
+ * store are not cached, so a cached file shows the same tree as a file read
+ * from its store. The documents are evicted in least recently used order once their total
+ * size exceeds the {@code sis.desktop.metadataDiskCacheMB} system property,
+ * 256 MB by default.
+ *
+ * @author Siddhesh Rane
+ */
+public final class MetadataDiskCache {
+
+    private static final int MAGIC = 0x5349534D;
+    private static final int FORMAT = 2;
+    private static final String INDEX = "index.bin";
+
+    /**
+     * Number of bytes at the beginning of a file which are hashed.
+     */
+    private static final int HASHED_BYTES = 64 * 1024;
+
+    /**
+     * Number of new entries after which the index is written without waiting
+     * for the application to stop.
+     */
+    private static final int SAVE_THRESHOLD = 16;
+
+    private static MetadataDiskCache instance;
+
+    /**
+     * Returns the cache shared by the whole application, reading its index
+     * from disk on first call.
+     *
+     * @return the default cache
+     */
+    public static synchronized MetadataDiskCache getDefault() {
+        if (instance == null) {
+            Path directory = null;
+            try {
+                directory = MainApp.getApplicationDirectory("cache").resolve("metadata");
+                Files.createDirectories(directory);
+            } catch (IOException ex) {
+                Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.SEVERE, null, ex);
+                directory = null;
+            }
+            instance = new MetadataDiskCache(directory, Long.getLong("sis.desktop.metadataDiskCacheMB", 256) * 1024 * 1024);
+        }
+        return instance;
+    }
+
+    private final Path directory;
+    private final long budget;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private int unsaved;
+    private long hits, misses, stale, written, evictions;
+
+    /**
+     * @param directory where the documents are kept, or {@code null} for a
+     *                  cache which is always empty
+     * @param budget    maximal number of bytes of the documents
+     */
+    public MetadataDiskCache(Path directory, long budget) {
+        this.directory = directory;
+        this.budget = budget;
+        if (directory != null && Files.isRegularFile(directory.resolve(INDEX))) {
+            load();
+        }
+    }
+
+    /**
+     * Returns the metadata of the given file if the cache has it for the
+     * current content of the file. This method does I/O and must not be
+     * called from the JavaFX thread.
+     *
+     * @param file the file to look for
+     * @param key  the current state of the file, as given by
+     *             {@link Key#of(File)}, or null if the file can not be read
+     * @return the cached metadata, or null
+     */
+    public Metadata get(File file, Key key) {
+        final String path = file.getAbsolutePath();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(path);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+        }
+        if (key == null || !key.equals(entry.key)) {
+            String obsolete;
+            synchronized (this) {
+                stale++;
+                obsolete = remove(path);
+            }
+            delete(obsolete);
+            return null;
+        }
+        try {
+            Metadata metadata = restore(XML.unmarshal(directory.resolve(entry.document)), entry.crs);
+            if (metadata != null) {
+                synchronized (this) {
+                    hits++;
+                }
+                return metadata;
+            }
+        } catch (JAXBException | ParseException | RuntimeException ex) {
+            Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.WARNING, "Ignoring unreadable cached metadata of " + file, ex);
+        }
+        String obsolete;
+        synchronized (this) {
+            misses++;
+            obsolete = remove(path);
+        }
+        delete(obsolete);
+        return null;
+    }
+
+    /**
+     * Writes the metadata of a file in the cache. Metadata which can not be
+     * marshalled, or which do not read back equal, are not cached. This
+     * method does I/O and must not be called from the JavaFX thread.
+     *
+     * @param file     the file the metadata were read from
+     * @param key      the state of the file taken before the metadata were
+     *                 read, so that a file modified meanwhile is not cached
+     *                 with the old metadata, or null if it could not be read
+     * @param metadata the metadata of the file
+     */
+    public void put(File file, Key key, Metadata metadata) {
+        if (directory == null || key == null) {
+            return;
+        }
+        final String path = file.getAbsolutePath();
+        final String document = documentName(path);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(directory, "metadata", ".tmp");
+            XML.marshal(metadata, tmp.toFile());
+            final List<String> crs = formatReferenceSystems(metadata);
+            final Metadata reread = restore(XML.unmarshal(tmp), crs);
+            if (reread == null || !MetadataStandard.ISO_19115.equals(metadata, reread, ComparisonMode.IGNORE_METADATA)) {
+                Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.FINE, "Not caching metadata of {0}, they change through XML", file);
+                return;
+            }
+            long size = Files.size(tmp);
+            move(tmp, directory.resolve(document));
+            List<String> evicted = new ArrayList<>();
+            boolean save;
+            synchronized (this) {
+                Entry old = entries.remove(path);
+                if (old != null) {
+                    bytes -= old.size;
+                }
+                entries.put(path, new Entry(key, document, size, crs));
+                bytes += size;
+                written++;
+                for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); bytes > budget && it.hasNext();) {
+                    Map.Entry<String, Entry> eldest = it.next();
+                    if (eldest.getKey().equals(path)) {
+                        break;
+                    }
+                    it.remove();
+                    bytes -= eldest.getValue().size;
+                    evicted.add(eldest.getValue().document);
+                    evictions++;
+                }
+                save = ++unsaved >= SAVE_THRESHOLD;
+            }
+            for (String name : evicted) {
+                Files.deleteIfExists(directory.resolve(name));
+            }
+            if (save) {
+                save();
+            }
+        } catch (JAXBException | ParseException | RuntimeException ex) {
+            //some stores give metadata which can not be written in XML, they will be read again next time
+            Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.FINE, "Cannot cache metadata of " + file, ex);
+        } catch (IOException ex) {
+            Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.WARNING, null, ex);
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ex) {
+                    Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.WARNING, null, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the entry of a file. Must be called with the lock held; the
+     * document is deleted by the caller once the lock is released.
+     *
+     * @return the document to delete, or null
+     */
+    private String remove(String path) {
+        Entry old = entries.remove(path);
+        if (old == null) {
+            return null;
+        }
+        bytes -= old.size;
+        unsaved++;
+        return old.document;
+    }
+
+    private void delete(String document) {
+        if (document != null) {
+            try {
+                Files.deleteIfExists(directory.resolve(document));
+            } catch (IOException ex) {
+                Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+    }
+
+    /**
+     * Formats the reference systems of the metadata which are CRS.
+     *
+     * @return WKT of every reference system in iteration order, null for
+     *         those which are not CRS or can not be formatted without loss
+     */
+    private static List<String> formatReferenceSystems(Metadata metadata) {
+        List<String> wkt = new ArrayList<>();
+        for (ReferenceSystem rs : metadata.getReferenceSystemInfo()) {
+            String text = null;
+            if (rs instanceof CoordinateReferenceSystem) {
+                WKTFormat format = new WKTFormat(null, null);
+                format.setConvention(Convention.INTERNAL);
+                text = format.format(rs);
+                if (format.getWarnings() != null) {
+                    text = null;
+                }
+            }
+            wkt.add(text);
+        }
+        return wkt;
+    }
+
+    /**
+     * Puts back the CRS formatted by {@link #formatReferenceSystems} in
+     * unmarshalled metadata.
+     *
+     * @return the metadata, or null if the document does not hold metadata
+     */
+    private static Metadata restore(Object value, List<String> crs) throws ParseException {
+        if (!(value instanceof Metadata)) {
+            return null;
+        }
+        if (!(value instanceof DefaultMetadata) || crs.isEmpty()) {
+            return (Metadata) value;
+        }
+        DefaultMetadata metadata = (DefaultMetadata) value;
+        List<ReferenceSystem> systems = new ArrayList<>(metadata.getReferenceSystemInfo());
+        if (systems.size() == crs.size()) {
+            for (int i = 0; i < systems.size(); i++) {
+                if (crs.get(i) != null) {
+                    WKTFormat format = new WKTFormat(null, null);
+                    format.setConvention(Convention.INTERNAL);
+                    systems.set(i, (CoordinateReferenceSystem) format.parseObject(crs.get(i)));
+                }
+            }
+            metadata.setReferenceSystemInfo(systems);
+        }
+        return metadata;
+    }
+
+    /**
+     * Names the document of a file after the hash of its path, so the same
+     * file always uses the same document.
+     */
+    private static String documentName(String path) {
+        StringBuilder name = new StringBuilder(48);
+        for (byte b : sha1().digest(path.getBytes(StandardCharsets.UTF_8))) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return name.append(".xml").toString();
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            //every Java platform is required to support SHA-1
+            throw new AssertionError(ex);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void load() {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(directory.resolve(INDEX)));
+                DataInputStream in = new DataInputStream(stream)) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.WARNING, "Ignoring metadata cache of unknown format");
+                return;
+            }
+            //entries are written from least to most recently used
+            for (int n = in.readInt(); --n >= 0;) {
+                String path = in.readUTF();
+                Key key = new Key(in.readLong(), in.readLong(), in.readLong());
+                String document = in.readUTF();
+                long size = in.readLong();
+                List<String> crs = new ArrayList<>();
+                for (int c = in.readInt(); --c >= 0;) {
+                    crs.add(readString(in));
+                }
+                entries.put(path, new Entry(key, document, size, crs));
+                bytes += size;
+            }
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.WARNING, "Ignoring unreadable metadata cache", ex);
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Writes the index of the cache to disk if it changed. Can be called from
+     * any thread.
+     */
+    public void save() {
+        if (directory == null) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> snapshot;
+        synchronized (this) {
+            if (unsaved == 0) {
+                return;
+            }
+            unsaved = 0;
+            snapshot = new ArrayList<>(entries.entrySet());
+        }
+        synchronized (directory) {
+            try {
+                Path tmp = Files.createTempFile(directory, "index", ".tmp");
+                try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(tmp));
+                        DataOutputStream out = new DataOutputStream(stream)) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT);
+                    out.writeInt(snapshot.size());
+                    for (Map.Entry<String, Entry> e : snapshot) {
+                        Entry entry = e.getValue();
+                        out.writeUTF(e.getKey());
+                        out.writeLong(entry.key.size);
+                        out.writeLong(entry.key.modified);
+                        out.writeLong(entry.key.hash);
+                        out.writeUTF(entry.document);
+                        out.writeLong(entry.size);
+                        out.writeInt(entry.crs.size());
+                        for (String wkt : entry.crs) {
+                            writeString(out, wkt);
+                        }
+                    }
+                }
+                move(tmp, directory.resolve(INDEX));
+            } catch (IOException ex) {
+                Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}, which unlike
+     * {@code writeUTF} accepts null and long WKT.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Metadata on disk: %d files, %.1f of %d MB, %d hits, %d misses, %d stale, %d written, %d evicted",
+                entries.size(), bytes / (1024 * 1024.0), budget / (1024 * 1024), hits, misses, stale, written, evictions);
+    }
+
+    /**
+     * What must not have changed in a file for its cached metadata to be
+     * used.
+     */
+    public static final class Key {
+
+        final long size, modified, hash;
+
+        Key(long size, long modified, long hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        /**
+         * Reads the attributes and the first bytes of a file.
+         *
+         * @return the key, or null if the file can not be read
+         */
+        public static Key of(File file) {
+            Path path = file.toPath();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(HASHED_BYTES, attributes.size()));
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer) < 0) {
+                            break;
+                        }
+                    }
+                }
+                buffer.flip();
+                MessageDigest digest = sha1();
+                digest.update(buffer);
+                long hash = ByteBuffer.wrap(digest.digest()).getLong();
+                return new Key(attributes.size(), attributes.lastModifiedTime().toMillis(), hash);
+            } catch (NoSuchFileException ex) {
+                return null;
+            } catch (IOException ex) {
+                Logger.getLogger(MetadataDiskCache.class.getName()).log(Level.WARNING, null, ex);
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return size == other.size && modified == other.modified && hash == other.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) ^ Long.hashCode(modified) ^ Long.hashCode(hash);
+        }
+    }
+
+    private static final class Entry {
+
+        final Key key;
+        final String document;
+        final long size;
+
+        /**
+         * WKT of the reference systems of the metadata, see
+         * {@link #formatReferenceSystems}.
+         */
+        final List<String> crs;
+
+        Entry(Key key, String document, long size, List<String> crs) {
+            this.key = key;
+            this.document = document;
+            this.size = size;
+            this.crs = crs;
+        }
+    }
+}
@@ -6,20 +6,19 @@ import java.io.IOException;
 import java.net.URI;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.prefs.BackingStoreException;
-import java.util.prefs.Preferences;
 import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -52,9 +51,7 @@ import javafx.stage.Stage;
 import org.apache.sis.desktop.crs.CRSEditor;
 import org.apache.sis.metadata.MetadataStandard;
 import org.apache.sis.metadata.ValueExistencePolicy;
-import org.apache.sis.storage.DataStore;
 import org.apache.sis.storage.DataStoreException;
-import org.apache.sis.storage.DataStores;
 import org.apache.sis.util.collection.TableColumn;
 import static org.apache.sis.util.collection.TableColumn.IDENTIFIER;
 import static org.apache.sis.util.collection.TableColumn.NAME;
@@ -76,6 +73,8 @@ import org.apache.sis.desktop.metadata.ControlledVocabularyBox;
 import org.apache.sis.desktop.metadata.GeographicExtentBox;
 import org.apache.sis.desktop.metadata.IdentifierBox;
 import org.apache.sis.desktop.metadata.MetadataTable;
+import org.apache.sis.desktop.metadata.NodePaths;
+import org.apache.sis.desktop.metadata.NodeTreeItem;
 import org.apache.sis.desktop.metadata.SummaryView;
 import org.apache.sis.desktop.metadata.VerticalExtentBox;
 import org.opengis.referencing.ReferenceSystem;
@@ -96,8 +95,8 @@ public class MetadataView extends VBox {
         return id == null ? name : id;
     }
 
-    Preferences rootprefs;
-    Preferences currentConfig;
+    ConfigStore store;
+    String currentConfig;
     TreeTable metadata;
     TreeTableView<TreeTable.Node> treeTableView = new TreeTableView<>();
     private Button configSave;
@@ -109,6 +108,7 @@ public class MetadataView extends VBox {
     private TreeTableColumn<TreeTable.Node, Object> typeColumn;
     private TreeTableColumn<TreeTable.Node, String> nameColumn;
     private TreeTableColumn<TreeTable.Node, Object> idColumn;
+    private Future<?> loader;
 
     /**
      * Returns true if a {@code TreeTable.NODE} is already covered by a custom
@@ -146,12 +146,13 @@ public class MetadataView extends VBox {
         }
     };
 
+    private final NodePaths nodePaths = new NodePaths();
     private final Set<String> nodesWithTreeItems = new HashSet<>();
-    private Predicate<TreeTable.Node> createTreeItemForNode = t -> nodesWithTreeItems.contains(getIdentifierElseName(t));
+    private Predicate<TreeTable.Node> createTreeItemForNode = t -> nodesWithTreeItems.contains(nodePaths.getName(t));
     private ObjectProperty<Predicate<TreeTable.Node>> createTreeItemForNodeProperty = new SimpleObjectProperty<>(NON_EMPTY_LEAF.and(notCoveredByCustomWidget));
 
     private Map<String, Integer> userSortTable = new HashMap<>();
-    Comparator<TreeTable.Node> userSortOrder = Comparator.comparingInt(node -> userSortTable.getOrDefault(getIdentifierElseName(node), Integer.MAX_VALUE));
+    Comparator<TreeTable.Node> userSortOrder = Comparator.comparingInt(node -> userSortTable.getOrDefault(nodePaths.getName(node), Integer.MAX_VALUE));
     private ObjectProperty<Comparator<TreeTable.Node>> comparator = new SimpleObjectProperty<>(userSortOrder);
 
     private final Set<String> expandSet = new HashSet<>();
@@ -161,11 +162,11 @@ public class MetadataView extends VBox {
         this.metadata = metadata;
         expandNodeProperty.addListener(ob -> expandNodes(treeTableView.getRoot()));
 
-        rootprefs = Preferences.userNodeForPackage(MetadataView.class);
+        store = ConfigStore.getDefault();
         prefBox = new ComboBox<>();
         prefBox.setEditable(true);
         configSave = new Button("Save Config");
-        configSave.setTooltip(new Tooltip("Save the current config info to preferences file. On linux it is available at ${user.home}/.java/.userPrefs/" + MetadataView.class.getPackage().getName()));
+        configSave.setTooltip(new Tooltip("Save the current config info to a file in ${user.home}/.sis-desktop/configs"));
         controlsBox = new HBox(configSave, prefBox);
         controlsBox.setSpacing(5);
         controlsBox.setPadding(new Insets(5));
@@ -248,8 +249,8 @@ public class MetadataView extends VBox {
             @Override
             public void run() {
                 TreeTable tree;
-                try (DataStore ds = DataStores.open(file)) {
-                    Metadata metadata = ds.getMetadata();
+                try (DataStorePool.Handle handle = DataStorePool.getDefault().newHandle(file)) {
+                    Metadata metadata = handle.getMetadata();
                     tree = MetadataStandard.ISO_19115.asTreeTable(metadata, Metadata.class, ValueExistencePolicy.NON_EMPTY);
                     MetadataView.this.metadata = tree;
                     Platform.runLater(() -> populateTreeTableView(tree));
@@ -257,9 +258,17 @@ public class MetadataView extends VBox {
                 }
             }
         };
-        final Thread thread = new Thread(metadataRetriever);
-        thread.setDaemon(true);
-        thread.start();
+        loader = TaskScheduler.getDefault().submit(metadataRetriever, TaskScheduler.Lane.FOREGROUND);
+    }
+
+    /**
+     * Stops reading the metadata of the file this view was created for, if it
+     * is still being read. To be called when this view is no longer displayed.
+     */
+    public void dispose() {
+        if (loader != null) {
+            TaskScheduler.getDefault().cancel(loader);
+        }
     }
 
     private void populateTreeTableView(TreeTable treeTable) {
@@ -342,27 +351,11 @@ public class MetadataView extends VBox {
     }
 
     private void updateRoot(TreeTable treeTable) {
-        TreeItem<TreeTable.Node> rootItem = new TreeItem<>(treeTable.getRoot());
-        createTreeItems(rootItem, treeTable.getRoot().getChildren());
+        TreeItem<TreeTable.Node> rootItem = new NodeTreeItem(treeTable.getRoot(), createTreeItemForNodeProperty, expandNodeProperty, null);
         rootItem.setExpanded(true);
         treeTableView.setRoot(rootItem);
     }
 
-    private void createTreeItems(TreeItem<TreeTable.Node> rootItem, Collection<TreeTable.Node> children) {
-        for (TreeTable.Node node : children) {
-            TreeItem parent = rootItem;
-            //include this node in the tree table view?
-            if (getCreateTreeItemForNode().test(node)) {
-                parent = new TreeItem(node);
-                parent.setExpanded(getExpandNode().test(node));
-                rootItem.getChildren().add(parent);
-            }
-            if (!node.isLeaf()) {
-                createTreeItems(parent, node.getChildren());
-            }
-        }
-    }
-
     /**
      * A property containing predicate that returns true if the given
      * {@link TreeTable.Node} must be shown as a {@link TreeItem} in the
@@ -419,18 +412,16 @@ public class MetadataView extends VBox {
             return;
         }
         root.setExpanded(getExpandNode().test(root.getValue()));
+        if (root instanceof NodeTreeItem && !((NodeTreeItem) root).isLoaded()) {
+            return;
+        }
         for (TreeItem<TreeTable.Node> child : root.getChildren()) {
             expandNodes(child);
         }
     }
 
     private void loadConfigs() {
-        String[] childrenNames = new String[]{};
-        try {
-            childrenNames = rootprefs.childrenNames();
-        } catch (BackingStoreException ex) {
-            Logger.getLogger(MetadataView.class.getName()).log(Level.SEVERE, null, ex);
-        }
+        String[] childrenNames = store.getNames().toArray(new String[0]);
         if (childrenNames.length == 0) {
             updateRoot(metadata);
             String rootName = metadata.getRoot().getValue(NAME).toString();
@@ -458,56 +449,41 @@ public class MetadataView extends VBox {
         if (name == null) {
             return;
         }
-        currentConfig = rootprefs.node(name);
-        try {
-            final String[] keys = currentConfig.keys();
-            if (keys.length == 0) {
-
+        currentConfig = name;
+        expandSet.clear();
+        userSortTable.clear();
+        nodesWithTreeItems.clear();
+        for (Map.Entry<String, ConfigStore.Setting> entry : store.load(name).entrySet()) {
+            String key = entry.getKey();
+            if (entry.getValue().isExpanded()) {
+                expandSet.add(key);
             }
-            expandSet.clear();
-            userSortTable.clear();
-            nodesWithTreeItems.clear();
-            for (String key : keys) {
-                String value = currentConfig.get(key, "+ v 0");
-                String[] split = value.split(" ");
-                if ("+".equals(split[0])) {
-                    expandSet.add(key);
-                }
-                if ("v".equals(split[1])) {
-                    nodesWithTreeItems.add(key);
-                }
-                int sortPosn = Integer.parseInt(split[2]);
-                userSortTable.put(key, sortPosn);
+            if (entry.getValue().isVisible()) {
+                nodesWithTreeItems.add(key);
             }
-            updateRoot(metadata);
-        } catch (BackingStoreException ex) {
-            Logger.getLogger(MetadataView.class.getName()).log(Level.SEVERE, null, ex);
+            userSortTable.put(key, entry.getValue().getPosition());
         }
+        updateRoot(metadata);
     }
 
     private void saveConfig(String name) {
         if (name == null || name.isEmpty()) {
             return;
         }
-        Preferences pref = rootprefs.node(name);
-        currentConfig = pref;
-        try {
-            pref.clear();
-        } catch (BackingStoreException ex) {
-            Logger.getLogger(MetadataView.class.getName()).log(Level.SEVERE, null, ex);
-        }
-        addToPref(pref, treeTableView.getRoot(), 0);
+        currentConfig = name;
+        Map<String, ConfigStore.Setting> settings = new LinkedHashMap<>();
+        addToConfig(settings, treeTableView.getRoot(), 0);
+        store.save(name, settings);
     }
 
-    private void addToPref(Preferences pref, TreeItem<TreeTable.Node> rootItem, int count) {
+    private void addToConfig(Map<String, ConfigStore.Setting> settings, TreeItem<TreeTable.Node> rootItem, int count) {
         TreeTable.Node root = rootItem.getValue();
-        char expanded = rootItem.isExpanded() ? '+' : '-';
-        String key = getIdentifierElseName(root);
-        pref.put(key, expanded + " v " + count);
+        String key = nodePaths.getName(root);
+        settings.put(key, new ConfigStore.Setting(count, rootItem.isExpanded(), true));
         if (!rootItem.isLeaf()) {
             for (TreeItem<TreeTable.Node> child : rootItem.getChildren()) {
                 count++;
-                addToPref(pref, child, count);
+                addToConfig(settings, child, count);
             }
         }
     }
@@ -0,0 +1,294 @@
+package org.apache.sis.desktop;
+
+import com.esri.core.geometry.Point;
+import java.time.Instant;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.feature.PropertyNotFoundException;
+
+/**
+ * Values of point features (waypoints, track and route points) stored column
+ * by column in primitive arrays. Latitude, longitude and elevation are doubles
+ * ({@code NaN} when missing), time is a long number of milliseconds since the
+ * epoch ({@link #NO_TIME} when missing) and texts are indices in a dictionary
+ * shared by all rows, since names and descriptions repeat a lot in track logs.
+ * A row costs about 40 bytes instead of the whole {@link Feature}.
+ * <p>
+ * This class is not thread safe, except for the dictionary which is shared
+ * with the pages created by {@link #newPage(int)}: a page can be filled on a
+ * worker thread while the columns it will be appended to are displayed.
+ *
+ * @author Siddhesh Rane
+ */
+public final class PointColumns {
+
+    /**
+     * Time of a row without time.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * Dictionary index of a missing text.
+     */
+    private static final int NO_TEXT = -1;
+
+    private final StringDictionary dictionary;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] elevations;
+    private long[] times;
+    private int[] names;
+    private int[] descriptions;
+    private int size;
+
+    /*
+     * Names of the properties in the last feature type seen, resolved once per
+     * type rather than looked up for every feature.
+     */
+    private FeatureType lastType;
+    private String nameProperty;
+    private String descriptionProperty;
+    private String elevationProperty;
+    private String timeProperty;
+
+    /**
+     * @param capacity initial number of rows
+     */
+    public PointColumns(int capacity) {
+        this(capacity, new StringDictionary());
+    }
+
+    private PointColumns(int capacity, StringDictionary dictionary) {
+        capacity = Math.max(capacity, 16);
+        this.dictionary = dictionary;
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        elevations = new double[capacity];
+        times = new long[capacity];
+        names = new int[capacity];
+        descriptions = new int[capacity];
+    }
+
+    /**
+     * @return a new empty page sharing the dictionary of these columns, so
+     *         that appending it copies no strings
+     */
+    public PointColumns newPage(int capacity) {
+        return new PointColumns(capacity, dictionary);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int row) {
+        return latitudes[check(row)];
+    }
+
+    public double getLongitude(int row) {
+        return longitudes[check(row)];
+    }
+
+    /**
+     * @return the elevation in metres, or {@code NaN}
+     */
+    public double getElevation(int row) {
+        return elevations[check(row)];
+    }
+
+    /**
+     * @return milliseconds since the epoch, or {@link #NO_TIME}
+     */
+    public long getTime(int row) {
+        return times[check(row)];
+    }
+
+    /**
+     * @return the name, or null
+     */
+    public String getName(int row) {
+        return dictionary.get(names[check(row)]);
+    }
+
+    /**
+     * @return the description, or null
+     */
+    public String getDescription(int row) {
+        return dictionary.get(descriptions[check(row)]);
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    /**
+     * Appends a row with the values of the given point feature.
+     */
+    public void add(Feature feature) {
+        FeatureType type = feature.getType();
+        if (type != lastType) {
+            lastType = type;
+            nameProperty = findProperty(type, "name");
+            descriptionProperty = findProperty(type, "desc", "description");
+            elevationProperty = findProperty(type, "ele");
+            timeProperty = findProperty(type, "time");
+        }
+        double lat = Double.NaN, lon = Double.NaN;
+        Object geometry = feature.getPropertyValue("sis:geometry");
+        if (geometry instanceof Point) {
+            Point p = (Point) geometry;
+            lat = p.getY();
+            lon = p.getX();
+        }
+        double ele = Double.NaN;
+        if (elevationProperty != null) {
+            Object value = feature.getPropertyValue(elevationProperty);
+            if (value instanceof Number) {
+                ele = ((Number) value).doubleValue();
+            }
+        }
+        long time = NO_TIME;
+        if (timeProperty != null) {
+            time = toMillis(feature.getPropertyValue(timeProperty));
+        }
+        add(lat, lon, ele, time, text(feature, nameProperty), text(feature, descriptionProperty));
+    }
+
+    /**
+     * Appends a row.
+     */
+    public void add(double latitude, double longitude, double elevation, long time, String name, String description) {
+        ensureCapacity(size + 1);
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        elevations[size] = elevation;
+        times[size] = time;
+        names[size] = dictionary.indexOf(name);
+        descriptions[size] = dictionary.indexOf(description);
+        size++;
+    }
+
+    /**
+     * Appends all rows of the given columns. Texts are copied through the
+     * dictionary unless both columns share it.
+     */
+    public void addAll(PointColumns other) {
+        int n = other.size;
+        ensureCapacity(size + n);
+        System.arraycopy(other.latitudes, 0, latitudes, size, n);
+        System.arraycopy(other.longitudes, 0, longitudes, size, n);
+        System.arraycopy(other.elevations, 0, elevations, size, n);
+        System.arraycopy(other.times, 0, times, size, n);
+        if (other.dictionary == dictionary) {
+            System.arraycopy(other.names, 0, names, size, n);
+            System.arraycopy(other.descriptions, 0, descriptions, size, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                names[size + i] = dictionary.indexOf(other.dictionary.get(other.names[i]));
+                descriptions[size + i] = dictionary.indexOf(other.dictionary.get(other.descriptions[i]));
+            }
+        }
+        size += n;
+    }
+
+    /**
+     * Removes all rows. The dictionary is kept, since the next rows are likely
+     * to reuse its texts.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > latitudes.length) {
+            int n = Math.max(capacity, latitudes.length + (latitudes.length >> 1));
+            latitudes = Arrays.copyOf(latitudes, n);
+            longitudes = Arrays.copyOf(longitudes, n);
+            elevations = Arrays.copyOf(elevations, n);
+            times = Arrays.copyOf(times, n);
+            names = Arrays.copyOf(names, n);
+            descriptions = Arrays.copyOf(descriptions, n);
+        }
+    }
+
+    private static String findProperty(FeatureType type, String... candidates) {
+        for (String candidate : candidates) {
+            try {
+                type.getProperty(candidate);
+                return candidate;
+            } catch (PropertyNotFoundException ex) {
+                //try the next name
+            }
+        }
+        return null;
+    }
+
+    private static String text(Feature feature, String property) {
+        if (property == null) {
+            return null;
+        }
+        Object value = feature.getPropertyValue(property);
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            value = list.isEmpty() ? null : list.get(0);
+        }
+        return value == null ? null : value.toString();
+    }
+
+    private static long toMillis(Object value) {
+        if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof TemporalAccessor) {
+            TemporalAccessor t = (TemporalAccessor) value;
+            if (t.isSupported(ChronoField.INSTANT_SECONDS)) {
+                return t.getLong(ChronoField.INSTANT_SECONDS) * 1000 + t.getLong(ChronoField.MILLI_OF_SECOND);
+            }
+        }
+        return NO_TIME;
+    }
+
+    /**
+     * Texts of the rows, each distinct text stored once. Only grows: texts are
+     * never removed, which is fine for the names of a single file.
+     */
+    private static final class StringDictionary {
+
+        private final HashMap<String, Integer> indices = new HashMap<>();
+        private String[] texts = new String[64];
+
+        int indexOf(String text) {
+            if (text == null) {
+                return NO_TEXT;
+            }
+            synchronized (this) {
+                Integer index = indices.get(text);
+                if (index == null) {
+                    index = indices.size();
+                    if (index == texts.length) {
+                        texts = Arrays.copyOf(texts, index * 2);
+                    }
+                    texts[index] = text;
+                    indices.put(text, index);
+                }
+                return index;
+            }
+        }
+
+        synchronized String get(int index) {
+            return index == NO_TEXT ? null : texts[index];
+        }
+    }
+}
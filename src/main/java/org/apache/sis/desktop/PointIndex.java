@@ -0,0 +1,257 @@
+package org.apache.sis.desktop;
+
+import com.esri.core.geometry.Envelope2D;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Packed Hilbert R-tree over the points of a {@link PointColumns}, built in
+ * bulk once the points are loaded. Points are sorted along a Hilbert curve and
+ * grouped by {@value #NODE_SIZE}, then groups are grouped the same way up to a
+ * single root, so the tree is balanced, has no empty space and is stored in a
+ * few primitive arrays. X is the longitude and Y the latitude, in degrees.
+ * <p>
+ * The index is immutable and can be queried from any thread. It must be
+ * rebuilt when the columns change.
+ *
+ * @author Siddhesh Rane
+ */
+public final class PointIndex {
+
+    private static final int NODE_SIZE = 16;
+
+    /**
+     * Side of the grid on which the Hilbert curve is drawn, small enough for
+     * Hilbert values to stay positive once shifted in the sort keys.
+     */
+    private static final int HILBERT_SIDE = 1 << 15;
+
+    /**
+     * Number of points in the indexed columns when the index was built,
+     * including points without coordinates which are not indexed.
+     */
+    private final int size;
+
+    /**
+     * Coordinates and rows of the indexed points, in Hilbert order.
+     */
+    private final double[] xs, ys;
+    private final int[] rows;
+
+    /**
+     * Bounding boxes of the nodes, level by level from the leaves, each level
+     * starting at the offset given by {@link #levelStarts}.
+     */
+    private final double[] minX, minY, maxX, maxY;
+    private final int[] levelStarts;
+
+    private PointIndex(int size, double[] xs, double[] ys, int[] rows,
+            double[] minX, double[] minY, double[] maxX, double[] maxY, int[] levelStarts) {
+        this.size = size;
+        this.xs = xs;
+        this.ys = ys;
+        this.rows = rows;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.levelStarts = levelStarts;
+    }
+
+    /**
+     * Builds the index of all points having coordinates.
+     */
+    public static PointIndex build(PointColumns columns) {
+        final int size = columns.size();
+        int n = 0;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            double x = columns.getLongitude(i), y = columns.getLatitude(i);
+            if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                n++;
+                west = Math.min(west, x);
+                east = Math.max(east, x);
+                south = Math.min(south, y);
+                north = Math.max(north, y);
+            }
+        }
+        //sort key: Hilbert value in the high bits, row in the low bits
+        final long[] keys = new long[n];
+        final double scaleX = east > west ? (HILBERT_SIDE - 1) / (east - west) : 0;
+        final double scaleY = north > south ? (HILBERT_SIDE - 1) / (north - south) : 0;
+        n = 0;
+        for (int i = 0; i < size; i++) {
+            double x = columns.getLongitude(i), y = columns.getLatitude(i);
+            if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                long h = hilbert((int) ((x - west) * scaleX), (int) ((y - south) * scaleY));
+                keys[n++] = (h << 32) | i;
+            }
+        }
+        Arrays.sort(keys);
+        final double[] xs = new double[n];
+        final double[] ys = new double[n];
+        final int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            int row = (int) keys[i];
+            rows[i] = row;
+            xs[i] = columns.getLongitude(row);
+            ys[i] = columns.getLatitude(row);
+        }
+        //number of nodes of all levels
+        int total = 0, levels = 0;
+        for (int count = n; ; ) {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            total += count;
+            levels++;
+            if (count <= 1) {
+                break;
+            }
+        }
+        final double[] minX = new double[total], minY = new double[total];
+        final double[] maxX = new double[total], maxY = new double[total];
+        final int[] levelStarts = new int[levels + 1];
+        //leaves
+        int nodes = (n + NODE_SIZE - 1) / NODE_SIZE;
+        for (int node = 0; node < nodes; node++) {
+            int from = node * NODE_SIZE, to = Math.min(from + NODE_SIZE, n);
+            double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+            double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                x0 = Math.min(x0, xs[i]);
+                y0 = Math.min(y0, ys[i]);
+                x1 = Math.max(x1, xs[i]);
+                y1 = Math.max(y1, ys[i]);
+            }
+            minX[node] = x0;
+            minY[node] = y0;
+            maxX[node] = x1;
+            maxY[node] = y1;
+        }
+        levelStarts[1] = nodes;
+        //upper levels
+        for (int level = 1; level < levels; level++) {
+            int childStart = levelStarts[level - 1];
+            int childCount = levelStarts[level] - childStart;
+            int start = levelStarts[level];
+            nodes = (childCount + NODE_SIZE - 1) / NODE_SIZE;
+            for (int node = 0; node < nodes; node++) {
+                int from = childStart + node * NODE_SIZE, to = Math.min(from + NODE_SIZE, childStart + childCount);
+                double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+                double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+                for (int i = from; i < to; i++) {
+                    x0 = Math.min(x0, minX[i]);
+                    y0 = Math.min(y0, minY[i]);
+                    x1 = Math.max(x1, maxX[i]);
+                    y1 = Math.max(y1, maxY[i]);
+                }
+                minX[start + node] = x0;
+                minY[start + node] = y0;
+                maxX[start + node] = x1;
+                maxY[start + node] = y1;
+            }
+            levelStarts[level + 1] = start + nodes;
+        }
+        return new PointIndex(size, xs, ys, rows, minX, minY, maxX, maxY, levelStarts);
+    }
+
+    /**
+     * Position of a cell along the Hilbert curve filling the grid.
+     */
+    private static long hilbert(int x, int y) {
+        long d = 0;
+        for (int s = HILBERT_SIDE / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = HILBERT_SIDE - 1 - x;
+                    y = HILBERT_SIDE - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * @return number of rows of the columns when this index was built
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gives the rows of the points inside the given box, borders included, in
+     * no particular order. A box with a west bound greater than its east bound
+     * crosses the anti-meridian.
+     *
+     * @param box    longitudes as x and latitudes as y, in degrees
+     * @param action receives the rows
+     * @return number of rows given to the action
+     */
+    public int query(Envelope2D box, IntConsumer action) {
+        if (levelStarts.length < 2 || levelStarts[1] == 0) {
+            return 0;
+        }
+        if (box.xmin > box.xmax) {
+            return search(levelStarts.length - 2, levelStarts[levelStarts.length - 2], box.xmin, box.ymin, Double.POSITIVE_INFINITY, box.ymax, action)
+                    + search(levelStarts.length - 2, levelStarts[levelStarts.length - 2], Double.NEGATIVE_INFINITY, box.ymin, box.xmax, box.ymax, action);
+        }
+        return search(levelStarts.length - 2, levelStarts[levelStarts.length - 2], box.xmin, box.ymin, box.xmax, box.ymax, action);
+    }
+
+    /**
+     * @return the rows of the points inside the given box, in increasing order
+     * @see #query(Envelope2D, IntConsumer)
+     */
+    public int[] query(Envelope2D box) {
+        Collector found = new Collector();
+        query(box, found);
+        int[] result = Arrays.copyOf(found.rows, found.count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int search(int level, int node, double x0, double y0, double x1, double y1, IntConsumer action) {
+        if (minX[node] > x1 || maxX[node] < x0 || minY[node] > y1 || maxY[node] < y0) {
+            return 0;
+        }
+        int count = 0;
+        int first = (node - levelStarts[level]) * NODE_SIZE;
+        if (level == 0) {
+            int to = Math.min(first + NODE_SIZE, xs.length);
+            for (int i = first; i < to; i++) {
+                double x = xs[i], y = ys[i];
+                if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                    action.accept(rows[i]);
+                    count++;
+                }
+            }
+        } else {
+            int childStart = levelStarts[level - 1];
+            int to = Math.min(childStart + first + NODE_SIZE, levelStarts[level]);
+            for (int child = childStart + first; child < to; child++) {
+                count += search(level - 1, child, x0, y0, x1, y1, action);
+            }
+        }
+        return count;
+    }
+
+    private static final class Collector implements IntConsumer {
+
+        int[] rows = new int[64];
+        int count;
+
+        @Override
+        public void accept(int row) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package org.apache.sis.desktop;
+
+import com.esri.core.geometry.Envelope2D;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Items of a table showing {@link PointColumns}. Items are row numbers: cells
+ * read their values directly from the columns at the row given by
+ * {@link #getRow(int)}, so no object is kept per row and scrolling does not
+ * look properties up in features. Rows can be restricted to a bounding box,
+ * answered by a {@link PointIndex} built on a worker thread, and sorted by
+ * a comparator of row numbers through {@link #sort(Comparator)}, which
+ * reorders a permutation of the rows instead of the columns.
+ * <p>
+ * Must be modified on the JavaFX thread only.
+ *
+ * @author Siddhesh Rane
+ */
+public final class PointTableModel extends ObservableListBase<Integer> {
+
+    private final PointColumns columns;
+
+    /**
+     * The box filter, or null to show all rows.
+     */
+    private Envelope2D box;
+
+    /**
+     * Order of the rows, or null for the order in which they were added.
+     */
+    private Comparator<? super Integer> order;
+
+    /**
+     * Rows of the columns inside the box, in display order. Only the first
+     * {@link #visibleCount} elements are used. Ignored when there is neither
+     * a box nor an order, rows are then shown as they were added.
+     */
+    private int[] visible;
+    private int visibleCount;
+
+    /**
+     * Index of the first rows of the columns, or null. Rows added since it was
+     * built are tested one by one until a new index, built on a worker, takes
+     * its place.
+     */
+    private PointIndex index;
+
+    /**
+     * Whether an index is being built on a worker.
+     */
+    private boolean indexing;
+
+    /**
+     * Number of calls to {@link #clear()}, so that an index of removed rows
+     * is discarded when it arrives.
+     */
+    private int clears;
+
+    public PointTableModel(PointColumns columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @return the values shown by the table
+     */
+    public PointColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the row in the columns of the given item
+     */
+    public int getRow(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Item " + index + " of " + size());
+        }
+        return isIdentity() ? index : visible[index];
+    }
+
+    /**
+     * @return whether items are the rows of the columns in their order
+     */
+    private boolean isIdentity() {
+        return box == null && order == null;
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getRow(index);
+    }
+
+    @Override
+    public int size() {
+        return isIdentity() ? columns.size() : visibleCount;
+    }
+
+    /**
+     * Returns the rows inside the box, asking for a new index if many rows
+     * have been added since the current one was built.
+     */
+    private int[] query(Envelope2D box) {
+        final int indexed = index == null ? 0 : index.getSize();
+        int[] rows = index == null ? new int[16] : index.query(box);
+        int n = index == null ? 0 : rows.length;
+        for (int row = indexed; row < columns.size(); row++) {
+            if (contains(box, columns.getLongitude(row), columns.getLatitude(row))) {
+                if (n == rows.length) {
+                    rows = Arrays.copyOf(rows, Math.max(16, n * 2));
+                }
+                rows[n++] = row;
+            }
+        }
+        requestIndex();
+        return n == rows.length ? rows : Arrays.copyOf(rows, n);
+    }
+
+    /**
+     * Builds the index of all rows on a worker once there are as many rows
+     * outside the index as inside, so that it is not rebuilt for every page
+     * while pages are loading. Only the copy of the columns is done on this
+     * thread.
+     */
+    private void requestIndex() {
+        final int n = columns.size();
+        if (indexing || n == 0 || (index != null && n - index.getSize() <= index.getSize())) {
+            return;
+        }
+        indexing = true;
+        final int generation = clears;
+        final PointColumns snapshot = columns.newPage(n);
+        snapshot.addAll(columns);
+        TaskScheduler.getDefault().submit(() -> {
+            PointIndex built = null;
+            try {
+                built = PointIndex.build(snapshot);
+            } finally {
+                final PointIndex result = built;
+                Platform.runLater(() -> {
+                    indexing = false;
+                    //the visible rows stay the same, only later queries are faster
+                    if (result != null && generation == clears) {
+                        index = result;
+                    }
+                });
+            }
+        }, TaskScheduler.Lane.BACKGROUND);
+    }
+
+    /**
+     * @return the box filter, or null
+     */
+    public Envelope2D getBoxFilter() {
+        return box;
+    }
+
+    /**
+     * Shows only the rows inside the given box, borders included. Rows added
+     * afterwards are filtered as well.
+     *
+     * @param filter longitudes as x and latitudes as y, or null to show all
+     *               rows
+     */
+    public void setBoxFilter(Envelope2D filter) {
+        List<Integer> removed = items();
+        box = filter == null ? null : new Envelope2D(filter.xmin, filter.ymin, filter.xmax, filter.ymax);
+        updateVisible();
+        replaced(removed);
+    }
+
+    /**
+     * Shows the rows in the order given by a comparator of their row numbers,
+     * such as one comparing the values of a column. Rows added afterwards are
+     * sorted as well. Only the permutation of the rows is sorted, the columns
+     * are not modified.
+     *
+     * @param comparator order of the rows, or null for the order in which
+     *                   they were added
+     */
+    @Override
+    public void sort(Comparator<? super Integer> comparator) {
+        List<Integer> removed = items();
+        order = comparator;
+        updateVisible();
+        replaced(removed);
+    }
+
+    /**
+     * Recomputes the visible rows from the box filter and the order.
+     */
+    private void updateVisible() {
+        if (isIdentity()) {
+            visible = null;
+            visibleCount = 0;
+            return;
+        }
+        if (box != null) {
+            visible = query(box);
+        } else {
+            visible = new int[columns.size()];
+            Arrays.setAll(visible, i -> i);
+        }
+        visibleCount = visible.length;
+        sortVisible();
+    }
+
+    private void sortVisible() {
+        if (order != null && visibleCount > 1) {
+            Integer[] rows = new Integer[visibleCount];
+            for (int i = 0; i < visibleCount; i++) {
+                rows[i] = visible[i];
+            }
+            Arrays.sort(rows, order);
+            for (int i = 0; i < visibleCount; i++) {
+                visible[i] = rows[i];
+            }
+        }
+    }
+
+    /**
+     * Notifies the table that all items were replaced.
+     */
+    private void replaced(List<Integer> removed) {
+        beginChange();
+        nextRemove(0, removed);
+        nextAdd(0, size());
+        endChange();
+    }
+
+    /**
+     * Appends the rows of a page and notifies the table.
+     */
+    public void append(PointColumns page) {
+        if (page.size() == 0) {
+            return;
+        }
+        int from = size();
+        int first = columns.size();
+        List<Integer> removed = order != null ? items() : null;
+        columns.addAll(page);
+        if (!isIdentity()) {
+            for (int row = first; row < columns.size(); row++) {
+                if (box == null || contains(box, columns.getLongitude(row), columns.getLatitude(row))) {
+                    if (visibleCount == visible.length) {
+                        visible = Arrays.copyOf(visible, Math.max(16, visibleCount * 2));
+                    }
+                    visible[visibleCount++] = row;
+                }
+            }
+        }
+        if (order != null) {
+            //new rows may go anywhere
+            if (size() > from) {
+                sortVisible();
+                replaced(removed);
+            }
+        } else if (size() > from) {
+            beginChange();
+            nextAdd(from, size());
+            endChange();
+        }
+    }
+
+    /**
+     * Removes all rows and notifies the table. The box filter and the order
+     * are kept.
+     */
+    @Override
+    public void clear() {
+        List<Integer> removed = items();
+        columns.clear();
+        index = null;
+        clears++;
+        visibleCount = 0;
+        if (!removed.isEmpty()) {
+            beginChange();
+            nextRemove(0, removed);
+            endChange();
+        }
+    }
+
+    /**
+     * Same test as {@link PointIndex#query(Envelope2D)}.
+     */
+    private static boolean contains(Envelope2D box, double x, double y) {
+        if (!(y >= box.ymin && y <= box.ymax)) {
+            return false;
+        }
+        if (box.xmin > box.xmax) {
+            return x >= box.xmin || x <= box.xmax;
+        }
+        return x >= box.xmin && x <= box.xmax;
+    }
+
+    /**
+     * Copy of the current items, for change notifications.
+     */
+    private List<Integer> items() {
+        if (isIdentity()) {
+            final int size = columns.size();
+            return new AbstractList<Integer>() {
+                @Override
+                public Integer get(int index) {
+                    return index;
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        int[] rows = Arrays.copyOf(visible, visibleCount);
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return rows[index];
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,254 @@
+package org.apache.sis.desktop;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.scene.control.Tab;
+
+/**
+ * Application wide scheduler for background work like opening data stores,
+ * reading metadata or querying the EPSG database. All work is executed by a
+ * bounded pool of daemon threads. Tasks waiting for a thread are ordered by
+ * their {@link Lane}, so that work for the visible tab runs before prefetching.
+ *
+ * @author Siddhesh Rane
+ */
+public final class TaskScheduler {
+
+    /**
+     * Priority lanes, from most to least urgent. Tasks within a lane are run in
+     * submission order.
+     */
+    public enum Lane {
+        /**
+         * Work the user is waiting for, e.g. the content of the selected tab.
+         */
+        FOREGROUND,
+        /**
+         * Work that is needed soon but nobody is staring at a spinner for.
+         */
+        BACKGROUND,
+        /**
+         * Speculative work whose result may never be used.
+         */
+        PREFETCH
+    }
+
+    private static final TaskScheduler DEFAULT = new TaskScheduler(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Returns the scheduler shared by the whole application.
+     *
+     * @return the default scheduler
+     */
+    public static TaskScheduler getDefault() {
+        return DEFAULT;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Lane, AtomicInteger> queued = new EnumMap<>(Lane.class);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param threads maximum number of tasks running concurrently
+     */
+    public TaskScheduler(int threads) {
+        for (Lane lane : Lane.values()) {
+            queued.put(lane, new AtomicInteger());
+        }
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "sis-desktop worker " + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules a task. JavaFX {@link javafx.concurrent.Task}s can be given
+     * here directly, their state and callbacks work as usual.
+     *
+     * @param <T>  type of the task
+     * @param task the task to run
+     * @param lane the priority lane of the task
+     * @return the given task, for chaining
+     */
+    public <T extends FutureTask<?>> T submit(T task, Lane lane) {
+        executor.execute(new Entry(task, lane));
+        return task;
+    }
+
+    /**
+     * Schedules a plain runnable.
+     *
+     * @param runnable the work to run
+     * @param lane     the priority lane of the work
+     * @return a future which can be used to cancel the work
+     */
+    public Future<?> submit(Runnable runnable, Lane lane) {
+        return submit(new FutureTask<>(runnable, null), lane);
+    }
+
+    /**
+     * Returns an executor view of this scheduler which puts all work in the
+     * given lane. Useful for {@link javafx.concurrent.Service#setExecutor} and
+     * {@link java.util.concurrent.CompletableFuture}.
+     *
+     * @param lane the priority lane used for all work given to the executor
+     * @return an executor backed by this scheduler
+     */
+    public Executor executor(Lane lane) {
+        return r -> submit(r, lane);
+    }
+
+    /**
+     * Cancels the task and removes it from the queue if it has not started.
+     * A running task is not interrupted: it may be reading a store shared
+     * through the {@link DataStorePool}, and interrupting a thread blocked on
+     * a file channel closes the channel, breaking the store for all its
+     * users. Long tasks stop at their next check of a cancellation flag.
+     *
+     * @param task a task previously given to this scheduler
+     */
+    public void cancel(Future<?> task) {
+        task.cancel(false);
+        executor.getQueue().removeIf(r -> {
+            Entry entry = (Entry) r;
+            if (entry.task != task) {
+                return false;
+            }
+            queued.get(entry.lane).decrementAndGet();
+            return true;
+        });
+    }
+
+    /**
+     * Cancels the given task when the tab is closed. Any existing
+     * {@code onClosed} handler of the tab is preserved.
+     *
+     * @param tab  the tab that displays the result of the task
+     * @param task a task previously given to this scheduler
+     */
+    public void cancelOnClose(Tab tab, Future<?> task) {
+        final EventHandler<Event> previous = tab.getOnClosed();
+        tab.setOnClosed(e -> {
+            cancel(task);
+            if (previous != null) {
+                previous.handle(e);
+            }
+        });
+    }
+
+    /**
+     * @param lane a priority lane
+     * @return number of tasks in the lane waiting for a worker thread
+     */
+    public int getQueueDepth(Lane lane) {
+        return queued.get(lane).get();
+    }
+
+    /**
+     * @return number of tasks currently running
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return number of tasks which finished, normally or not
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * @return mean time in milliseconds tasks spent waiting for a thread
+     */
+    public double getAverageWaitMillis() {
+        long n = completed.get();
+        return n == 0 ? 0 : totalWaitNanos.get() / 1e6 / n;
+    }
+
+    /**
+     * @return longest time in milliseconds a task waited for a thread
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    /**
+     * @return mean running time of tasks in milliseconds
+     */
+    public double getAverageRunMillis() {
+        long n = completed.get();
+        return n == 0 ? 0 : totalRunNanos.get() / 1e6 / n;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Background tasks\n");
+        for (Lane lane : Lane.values()) {
+            sb.append("  queued ").append(lane.name().toLowerCase()).append(": ").append(getQueueDepth(lane)).append('\n');
+        }
+        sb.append("  running: ").append(getActiveCount()).append(" of ").append(executor.getMaximumPoolSize()).append('\n');
+        sb.append("  completed: ").append(getCompletedCount()).append('\n');
+        sb.append(String.format("  wait avg/max: %.1f / %.1f ms%n", getAverageWaitMillis(), getMaxWaitMillis()));
+        sb.append(String.format("  run avg: %.1f ms%n", getAverageRunMillis()));
+        return sb.toString();
+    }
+
+    /**
+     * Queue element ordering tasks by lane, then by submission order.
+     */
+    private final class Entry implements Runnable, Comparable<Entry> {
+
+        final Runnable task;
+        final Lane lane;
+        final long order = sequence.getAndIncrement();
+        final long queuedAt = System.nanoTime();
+
+        Entry(Runnable task, Lane lane) {
+            this.task = task;
+            this.lane = lane;
+            queued.get(lane).incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            queued.get(lane).decrementAndGet();
+            long start = System.nanoTime();
+            long wait = start - queuedAt;
+            totalWaitNanos.addAndGet(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            try {
+                task.run();
+            } finally {
+                totalRunNanos.addAndGet(System.nanoTime() - start);
+                completed.incrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = lane.compareTo(o.lane);
+            return c != 0 ? c : Long.compare(order, o.order);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.apache.sis.desktop;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import org.apache.sis.desktop.track.LevelOfDetail;
+import org.apache.sis.desktop.track.TrackSegment;
+
+/**
+ * FXML Controller class of a table of routes or track segments with their
+ * statistics, and the points of the selected one at the chosen level of
+ * detail.
+ *
+ * @author Siddhesh Rane
+ */
+public class TrackTableController implements Initializable {
+
+    /**
+     * Number of points listed when a segment is selected. Finer levels are
+     * shown when the detail slider is moved to the right.
+     */
+    private static final int OVERVIEW_POINTS = 4096;
+
+    @FXML
+    private TableView<TrackSegment> segments;
+    @FXML
+    private TableColumn<TrackSegment, String> name;
+    @FXML
+    private TableColumn<TrackSegment, String> pointCount;
+    @FXML
+    private TableColumn<TrackSegment, String> length;
+    @FXML
+    private TableColumn<TrackSegment, String> duration;
+    @FXML
+    private TableColumn<TrackSegment, String> minElevation;
+    @FXML
+    private TableColumn<TrackSegment, String> maxElevation;
+    @FXML
+    private Slider detail;
+    @FXML
+    private Label detailInfo;
+    @FXML
+    private WaypointTableController pointTableController;
+    private final ObservableList<TrackSegment> items = FXCollections.observableArrayList();
+
+    /**
+     * Initializes the controller class.
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle rb) {
+        segments.setItems(items);
+        name.setCellValueFactory((param) -> new SimpleStringProperty(param.getValue().toString()));
+        pointCount.setCellValueFactory((param) -> new SimpleStringProperty(
+                Integer.toString(param.getValue().getStatistics().getPointCount())));
+        length.setCellValueFactory((param) -> new SimpleStringProperty(
+                String.format(Locale.ROOT, "%.2f km", param.getValue().getStatistics().getLength() / 1000)));
+        duration.setCellValueFactory((param) -> new SimpleStringProperty(
+                formatDuration(param.getValue().getStatistics().getDuration())));
+        minElevation.setCellValueFactory((param) -> new SimpleStringProperty(
+                formatElevation(param.getValue().getStatistics().getMinElevation())));
+        maxElevation.setCellValueFactory((param) -> new SimpleStringProperty(
+                formatElevation(param.getValue().getStatistics().getMaxElevation())));
+        segments.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, segment) -> {
+            if (segment == null) {
+                detail.setMax(0);
+                showLevel(null, 0);
+                return;
+            }
+            LevelOfDetail levels = segment.getLevels();
+            int coarsest = levels.getLevelCount() - 1;
+            detail.setMax(coarsest);
+            int level = levels.select(OVERVIEW_POINTS);
+            if (detail.getValue() == coarsest - level) {
+                showLevel(segment, level);
+            } else {
+                detail.setValue(coarsest - level);
+            }
+        });
+        //the slider goes from the coarsest level on the left to all points on the right
+        detail.valueProperty().addListener((observable, oldValue, value) -> {
+            TrackSegment segment = segments.getSelectionModel().getSelectedItem();
+            if (segment != null) {
+                int level = (int) Math.round(detail.getMax() - value.doubleValue());
+                showLevel(segment, Math.max(0, Math.min(level, segment.getLevels().getLevelCount() - 1)));
+            }
+        });
+    }
+
+    private void showLevel(TrackSegment segment, int level) {
+        PointTableModel model = pointTableController.getWaypoints();
+        model.clear();
+        if (segment == null) {
+            detailInfo.setText(null);
+            return;
+        }
+        LevelOfDetail levels = segment.getLevels();
+        PointColumns page = model.getColumns().newPage(levels.getSize(level));
+        levels.copy(level, segment.getPoints(), page);
+        model.append(page);
+        detailInfo.setText(levels.getSize(level) + " of " + segment.getPoints().size() + " points");
+    }
+
+    /**
+     * @return the routes or track segments shown by the table
+     */
+    public ObservableList<TrackSegment> getSegments() {
+        return items;
+    }
+
+    private static String formatDuration(long millis) {
+        if (millis < 0) {
+            return null;
+        }
+        long seconds = millis / 1000;
+        return String.format(Locale.ROOT, "%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+
+    private static String formatElevation(double value) {
+        return Double.isNaN(value) ? null : String.format(Locale.ROOT, "%.1f m", value);
+    }
+}
@@ -1,19 +1,18 @@
 package org.apache.sis.desktop;
 
 import java.net.URL;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.ResourceBundle;
-import javafx.beans.property.SimpleStringProperty;
+import java.util.function.IntFunction;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import org.opengis.feature.Feature;
-import com.esri.core.geometry.Point;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.scene.control.cell.TextFieldTableCell;
-import javafx.util.converter.FormatStringConverter;
 import org.apache.sis.measure.AngleFormat;
 import org.apache.sis.measure.Latitude;
 import org.apache.sis.measure.Longitude;
@@ -26,20 +25,20 @@ import org.apache.sis.measure.Longitude;
 public class WaypointTableController implements Initializable {
 
     @FXML
-    private TableView<Feature> table;
+    private TableView<Integer> table;
     @FXML
-    private TableColumn<Feature, String> name;
+    private TableColumn<Integer, Void> name;
     @FXML
-    private TableColumn<Feature, Latitude> latitude;
+    private TableColumn<Integer, Void> latitude;
     @FXML
-    private TableColumn<Feature, Longitude> longitude;
+    private TableColumn<Integer, Void> longitude;
     @FXML
-    private TableColumn<Feature, Double> elevation;
+    private TableColumn<Integer, Void> elevation;
     @FXML
-    private TableColumn<Feature, ?> time;
+    private TableColumn<Integer, Void> time;
     @FXML
-    private TableColumn<Feature, String> description;
-    private final ObservableList<Feature> waypoints = FXCollections.observableArrayList();
+    private TableColumn<Integer, Void> description;
+    private final PointTableModel waypoints = new PointTableModel(new PointColumns(1024));
 
     /**
      * Initializes the controller class.
@@ -47,37 +46,82 @@ public class WaypointTableController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         table.setItems(waypoints);
-        name.setCellValueFactory((param) -> new SimpleStringProperty(param.getValue().getPropertyValue("name").toString()));
-        description.setCellValueFactory((param) -> new SimpleStringProperty(param.getValue().getPropertyValue("description").toString()));
-        description.setCellFactory(a -> new TextFieldTableCell<>());
-        latitude.setCellFactory(a -> new TextFieldTableCell<>(new FormatStringConverter(AngleFormat.getInstance())));
-        latitude.setCellValueFactory((param) -> {
-            Feature f = param.getValue();
-            Object val = f.getPropertyValue("sis:geometry");
-            if (val instanceof Point) {
-                Point p = (Point) val;
-                return new SimpleObjectProperty<>(new Latitude(p.getY()));
-            }
-            return new SimpleObjectProperty<>(null);
-        });
-        longitude.setCellFactory(a -> new TextFieldTableCell<>(new FormatStringConverter(AngleFormat.getInstance())));
-        longitude.setCellValueFactory((param) -> {
-            Feature f = param.getValue();
-            Object val = f.getPropertyValue("sis:geometry");
-            if (val instanceof Point) {
-                Point p = (Point) val;
-                return new SimpleObjectProperty<>(new Longitude(p.getX()));
+        PointColumns columns = waypoints.getColumns();
+        AngleFormat angleFormat = AngleFormat.getInstance();
+        name.setCellFactory(a -> new PointCell(columns::getName));
+        description.setCellFactory(a -> new PointCell(columns::getDescription));
+        latitude.setCellFactory(a -> new PointCell(row -> {
+            double value = columns.getLatitude(row);
+            return Double.isNaN(value) ? null : angleFormat.format(new Latitude(value));
+        }));
+        longitude.setCellFactory(a -> new PointCell(row -> {
+            double value = columns.getLongitude(row);
+            return Double.isNaN(value) ? null : angleFormat.format(new Longitude(value));
+        }));
+        elevation.setCellFactory(a -> new PointCell(row -> {
+            double value = columns.getElevation(row);
+            return Double.isNaN(value) ? null : Double.toString(value);
+        }));
+        time.setCellFactory(a -> new PointCell(row -> {
+            long value = columns.getTime(row);
+            return value == PointColumns.NO_TIME ? null : DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(value));
+        }));
+
+        //cells have no value to compare, rows are sorted by the values of their columns instead
+        Comparator<String> text = Comparator.nullsLast(Comparator.naturalOrder());
+        Map<TableColumn<Integer, ?>, Comparator<Integer>> orders = new HashMap<>();
+        orders.put(name, Comparator.comparing(columns::getName, text));
+        orders.put(description, Comparator.comparing(columns::getDescription, text));
+        orders.put(latitude, Comparator.comparingDouble(columns::getLatitude));
+        orders.put(longitude, Comparator.comparingDouble(columns::getLongitude));
+        orders.put(elevation, Comparator.comparingDouble(columns::getElevation));
+        orders.put(time, Comparator.comparingLong(columns::getTime));
+        table.setSortPolicy(t -> {
+            Comparator<Integer> order = null;
+            for (TableColumn<Integer, ?> column : t.getSortOrder()) {
+                Comparator<Integer> c = orders.get(column);
+                if (c != null) {
+                    if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+                        c = c.reversed();
+                    }
+                    order = order == null ? c : order.thenComparing(c);
+                }
             }
-            return new SimpleObjectProperty<>(null);
-        });
-        elevation.setCellValueFactory((param) -> {
-            Double val = (Double) param.getValue().getPropertyValue("ele");
-            return new SimpleObjectProperty<>(val);
+            waypoints.sort(order);
+            return true;
         });
     }
 
-    public ObservableList<Feature> getWaypoints() {
+    /**
+     * @return the rows of the table, backed by columns of primitive values
+     */
+    public PointTableModel getWaypoints() {
         return waypoints;
     }
 
+    /**
+     * Cell showing the text of its row, computed from the columns when the
+     * cell is given a new index. Columns have no cell value factory, the row
+     * number is all a cell needs.
+     */
+    private static final class PointCell extends TableCell<Integer, Void> {
+
+        private final IntFunction<String> text;
+
+        PointCell(IntFunction<String> text) {
+            this.text = text;
+        }
+
+        @Override
+        protected void updateItem(Void item, boolean empty) {
+            super.updateItem(item, empty);
+            int index = getIndex();
+            PointTableModel model = (PointTableModel) getTableView().getItems();
+            if (empty || index < 0 || index >= model.size()) {
+                setText(null);
+            } else {
+                setText(text.apply(model.getRow(index)));
+            }
+        }
+    }
 }
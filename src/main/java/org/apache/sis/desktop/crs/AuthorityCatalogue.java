@@ -0,0 +1,308 @@
+package org.apache.sis.desktop.crs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.desktop.MainApp;
+import org.apache.sis.desktop.TaskScheduler;
+import org.apache.sis.referencing.CRS;
+import org.opengis.metadata.Identifier;
+import org.opengis.referencing.AuthorityFactory;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.util.FactoryException;
+import org.opengis.util.InternationalString;
+
+/**
+ * Objects of one type defined by the EPSG authority, such as prime meridians
+ * or coordinate systems. The codes and names are listed once, in the
+ * background, the first time they are asked for. They are read from a file
+ * of the application cache written by a previous run unless the EPSG version
+ * changed, otherwise streamed from the authority as they are found and saved
+ * for the next run. Objects are created only when asked for by code and the most
+ * recently used ones are kept in a cache of bounded size. All methods can be
+ * called from any thread.
+ *
+ * @param <T> type of the objects
+ * @author Siddhesh Rane
+ */
+public final class AuthorityCatalogue<T extends IdentifiedObject> {
+
+    /**
+     * Creates an object from the authority factory.
+     *
+     * @param <T> type of the objects
+     */
+    @FunctionalInterface
+    public interface Creator<T> {
+
+        T create(AuthorityFactory factory, String code) throws FactoryException;
+    }
+
+    /**
+     * Number of codes published at once while listing.
+     */
+    private static final int BATCH_SIZE = 32;
+
+    private static final int MAGIC = 0x5349534E;
+    private static final int FORMAT = 1;
+
+    private final String fileName;
+    private final Class<T> type;
+    private final Creator<T> creator;
+    private final int capacity;
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<T>> objects;
+    private final DefinitionSource<String> codes;
+    private final AtomicBoolean listing = new AtomicBoolean();
+
+    /**
+     * @param name     name of the objects, for statistics
+     * @param fileName name of the file of the application cache keeping the
+     *                 codes and names between runs
+     * @param type     the interface given to the factory when listing codes
+     * @param creator  creates an object from its code
+     * @param capacity maximal number of objects kept in memory
+     */
+    public AuthorityCatalogue(String name, String fileName, Class<T> type, Creator<T> creator, int capacity) {
+        this.codes = new DefinitionSource<>(name);
+        this.fileName = fileName;
+        this.type = type;
+        this.creator = creator;
+        this.capacity = capacity;
+        this.objects = new LinkedHashMap<String, CompletableFuture<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<T>> eldest) {
+                return size() > AuthorityCatalogue.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the codes of all objects, listed on the background lane of the
+     * {@link TaskScheduler} on first call. Codes saved by a previous run are
+     * published at once, codes queried from the authority in batches once
+     * their names are known.
+     *
+     * @return the codes, in the order given by the authority
+     */
+    public DefinitionSource<String> getCodes() {
+        if (listing.compareAndSet(false, true)) {
+            codes.start();
+            TaskScheduler.getDefault().submit(this::listCodes, TaskScheduler.Lane.BACKGROUND);
+        }
+        return codes;
+    }
+
+    /**
+     * Same as {@link #getCodes()} without starting to list them.
+     */
+    DefinitionSource<String> peekCodes() {
+        return codes;
+    }
+
+    private void listCodes() {
+        final String version = CodeIndex.versionOf("EPSG");
+        if (readNames(version)) {
+            return;
+        }
+        try {
+            AuthorityFactory factory = CRS.getAuthorityFactory("EPSG");
+            Map<String, String> listed = new LinkedHashMap<>();
+            boolean complete = true;
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            for (String code : factory.getAuthorityCodes(type)) {
+                String name = code;
+                try {
+                    InternationalString text = factory.getDescriptionText(code);
+                    if (text != null) {
+                        name = text.toString();
+                    }
+                } catch (FactoryException | RuntimeException ex) {
+                    //listed by its code, and looked up again on next run
+                    Logger.getLogger(AuthorityCatalogue.class.getName()).log(Level.WARNING, "No name for " + code, ex);
+                    complete = false;
+                }
+                names.putIfAbsent(code, name);
+                listed.put(code, name);
+                batch.add(code);
+                if (batch.size() == BATCH_SIZE) {
+                    codes.publish(batch);
+                    batch.clear();
+                }
+            }
+            codes.publish(batch);
+            codes.complete();
+            if (complete) {
+                writeNames(version, listed);
+            }
+        } catch (FactoryException | RuntimeException ex) {
+            Logger.getLogger(AuthorityCatalogue.class.getName()).log(Level.SEVERE, null, ex);
+            codes.fail(ex);
+        }
+    }
+
+    /**
+     * Publishes the codes and names saved by a previous run, if they were
+     * listed from the same version of the authority.
+     *
+     * @return whether the codes have been published
+     */
+    private boolean readNames(String version) {
+        try {
+            Path file = MainApp.getApplicationDirectory("cache").resolve(fileName);
+            if (!Files.isRegularFile(file)) {
+                return false;
+            }
+            List<String> saved = new ArrayList<>();
+            try (InputStream stream = new BufferedInputStream(Files.newInputStream(file));
+                    DataInputStream in = new DataInputStream(stream)) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT || !in.readUTF().equals(version)) {
+                    return false;
+                }
+                for (int n = in.readInt(); --n >= 0;) {
+                    String code = in.readUTF();
+                    names.putIfAbsent(code, in.readUTF());
+                    saved.add(code);
+                }
+            }
+            codes.publish(saved);
+            codes.complete();
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(AuthorityCatalogue.class.getName()).log(Level.WARNING, "Ignoring unreadable " + fileName, ex);
+            return false;
+        }
+    }
+
+    private void writeNames(String version, Map<String, String> listed) {
+        try {
+            Path file = MainApp.getApplicationDirectory("cache").resolve(fileName);
+            Path tmp = Files.createTempFile(file.getParent(), fileName, ".tmp");
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(tmp));
+                    DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeUTF(version);
+                out.writeInt(listed.size());
+                for (Map.Entry<String, String> entry : listed.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(AuthorityCatalogue.class.getName()).log(Level.WARNING, "Could not save " + fileName, ex);
+        }
+    }
+
+    /**
+     * Returns the name of an object without creating it.
+     *
+     * @param code code of the object
+     * @return the name, or the code itself if the codes are not listed yet
+     */
+    public String getName(String code) {
+        return code == null ? "" : names.getOrDefault(code, code);
+    }
+
+    /**
+     * Returns the code with the given name, for editable combo boxes.
+     *
+     * @param name name of an object
+     * @return its code, or the given text if no object has that name
+     */
+    public String getCode(String name) {
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            if (entry.getValue().equals(name)) {
+                return entry.getKey();
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Returns the object of the given code, created on the foreground lane
+     * unless it is in the cache.
+     *
+     * @param code code of the object
+     * @return the object, or an exceptionally completed future if the code is
+     *         unknown
+     */
+    public CompletableFuture<T> get(String code) {
+        synchronized (objects) {
+            CompletableFuture<T> object = objects.get(code);
+            if (object == null || object.isCompletedExceptionally()) {
+                object = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return creator.create(CRS.getAuthorityFactory("EPSG"), code);
+                    } catch (FactoryException ex) {
+                        throw new IllegalArgumentException(ex);
+                    }
+                }, TaskScheduler.getDefault().executor(TaskScheduler.Lane.FOREGROUND));
+                objects.put(code, object);
+            }
+            return object;
+        }
+    }
+
+    /**
+     * Returns the object of the given code if it has been created already.
+     *
+     * @param code code of the object
+     * @return the object, or null
+     */
+    public T getIfCreated(String code) {
+        CompletableFuture<T> object;
+        synchronized (objects) {
+            object = objects.get(code);
+        }
+        return object != null && object.isDone() && !object.isCompletedExceptionally() ? object.join() : null;
+    }
+
+    /**
+     * Puts an object obtained by other means, for example from a CRS, in the
+     * cache. The object is known by its EPSG code if it has one, otherwise by
+     * its name.
+     *
+     * @param object the object
+     * @return the code by which the object can be retrieved
+     */
+    public String add(T object) {
+        String code = null;
+        for (Identifier id : object.getIdentifiers()) {
+            if ("EPSG".equalsIgnoreCase(id.getCodeSpace())) {
+                code = id.getCode();
+                break;
+            }
+        }
+        if (code == null) {
+            code = object.getName().getCode();
+        }
+        names.putIfAbsent(code, object.getName().getCode());
+        synchronized (objects) {
+            objects.put(code, CompletableFuture.completedFuture(object));
+        }
+        return code;
+    }
+}
@@ -3,32 +3,35 @@ package org.apache.sis.desktop.crs;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
-import javafx.beans.binding.Bindings;
-import javafx.beans.binding.StringBinding;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory;
@@ -41,11 +44,10 @@ import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.text.Text;
 import javafx.util.StringConverter;
-import org.apache.sis.referencing.CRS;
 import org.opengis.metadata.extent.Extent;
 import org.opengis.metadata.extent.GeographicBoundingBox;
 import org.opengis.metadata.extent.GeographicExtent;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.IdentifiedObject;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.cs.AxisDirection;
 import org.opengis.referencing.cs.CSAuthorityFactory;
@@ -54,8 +56,8 @@ import org.opengis.referencing.cs.CoordinateSystemAxis;
 import org.opengis.referencing.datum.DatumAuthorityFactory;
 import org.opengis.referencing.datum.Ellipsoid;
 import org.opengis.referencing.datum.PrimeMeridian;
-import org.opengis.util.FactoryException;
 import org.opengis.util.InternationalString;
+import org.apache.sis.desktop.TaskScheduler;
 import org.apache.sis.desktop.metadata.GeographicExtentBox;
 import org.apache.sis.measure.AngleFormat;
 import org.controlsfx.control.textfield.TextFields;
@@ -73,19 +75,25 @@ public class CRSEditor extends AnchorPane implements Initializable {
 
     public static final AngleFormat ANGLE_FORMAT = new AngleFormat("DD°MM′SS.#″");
 
+    private static final int MAX_SUGGESTIONS = 50;
     private static final ConcurrentHashMap<String, String> CRS_CODE = new ConcurrentHashMap<>();
-    private static final List<CoordinateSystem> COORDINATE_SYSTEMS = new ArrayList<>();
-    private static final List<PrimeMeridian> PRIME_MERIDIANS = new ArrayList();
+    private static final AuthorityCatalogue<PrimeMeridian> PRIME_MERIDIANS = new AuthorityCatalogue<>("Prime meridians", "prime-meridians.idx", PrimeMeridian.class,
+            (factory, code) -> ((DatumAuthorityFactory) factory).createPrimeMeridian(code), 32);
+    private static final AuthorityCatalogue<CoordinateSystem> COORDINATE_SYSTEMS = new AuthorityCatalogue<>("Coordinate systems", "coordinate-systems.idx", CoordinateSystem.class,
+            (factory, code) -> ((CSAuthorityFactory) factory).createCoordinateSystem(code), 64);
 
-    public static final StringConverter<PrimeMeridian> PRIME_MERIDIAN_STRING_CONVERTER = new StringConverter<PrimeMeridian>() {
+    /**
+     * Shows prime meridian codes by name.
+     */
+    public static final StringConverter<String> PRIME_MERIDIAN_STRING_CONVERTER = new StringConverter<String>() {
         @Override
-        public String toString(PrimeMeridian object) {
-            return object.getName().getCode();
+        public String toString(String code) {
+            return PRIME_MERIDIANS.getName(code);
         }
 
         @Override
-        public PrimeMeridian fromString(String string) {
-            throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        public String fromString(String name) {
+            return PRIME_MERIDIANS.getCode(name);
         }
     };
     public static final StringConverter<AxisDirection> AXIS_DIRECTION_STRING_CONVERTER = new StringConverter<AxisDirection>() {
@@ -99,25 +107,25 @@ public class CRSEditor extends AnchorPane implements Initializable {
             return AxisDirection.valueOf(string);
         }
     };
-    public static final StringConverter<CoordinateSystem> CS_STRING_CONVERTER = new StringConverter<CoordinateSystem>() {
+    /**
+     * Shows coordinate system codes by name.
+     */
+    public static final StringConverter<String> CS_STRING_CONVERTER = new StringConverter<String>() {
         @Override
-        public String toString(CoordinateSystem cs) {
-            if (cs == null) {
-                return "";
-            }
-            return cs.getName().getCode();
+        public String toString(String code) {
+            return COORDINATE_SYSTEMS.getName(code);
         }
 
         @Override
-        public CoordinateSystem fromString(String string) {
-            throw new UnsupportedOperationException();
+        public String fromString(String name) {
+            return COORDINATE_SYSTEMS.getCode(name);
         }
     };
     public static final StringConverter<String> CRS_CODE_TO_DESCRIPTION_CONVERTER = new StringConverter<String>() {
         @Override
         public String toString(String code) {
             final String desc = CRS_CODE.get(code);
-            if (desc != null) {
+            if (desc != null && !desc.isEmpty()) {
                 return code + ' ' + desc;
             }
             return code;
@@ -138,78 +146,27 @@ public class CRSEditor extends AnchorPane implements Initializable {
         }
     };
 
-    private static final CountDownLatch allDefsLoaded = new CountDownLatch(3);
     static {
-        Runnable pmLoader = () -> {
-            try {
-                CRSAuthorityFactory factory = CRS.getAuthorityFactory("EPSG");
-                //Populate Prime Meridians
-                if (factory instanceof DatumAuthorityFactory) {
-                    DatumAuthorityFactory df = (DatumAuthorityFactory) factory;
-                    Set<String> codes = df.getAuthorityCodes(PrimeMeridian.class);
-                    PRIME_MERIDIANS.clear();
-                    for (String code : codes) {
-                        PrimeMeridian pm = df.createPrimeMeridian(code);
-                        PRIME_MERIDIANS.add(pm);
-                    }
-                }
-            } catch (FactoryException ex) {
-                Logger.getLogger(CRSEditor.class.getName()).log(Level.SEVERE, null, ex);
+        //prime meridians and coordinate systems are listed by their catalogues when first shown
+        //Populate CRS Codes, as they arrive and again when the index is rebuilt
+        Consumer<List<CodeIndex.Entry>> crsLoader = entries -> {
+            for (CodeIndex.Entry entry : entries) {
+                String description = entry.getDescription();
+                CRS_CODE.put(entry.getIdentifier(), description != null ? description : "");
             }
-            allDefsLoaded.countDown();
         };
+        CodeIndex.getInstance().getSource().subscribe(crsLoader);
+        CodeIndex.getInstance().addListener(crsLoader);
+    }
 
-        Runnable csLoader = () -> {
-            try {
-                //Populate Coordinate Systems
-                CRSAuthorityFactory factory = CRS.getAuthorityFactory("EPSG");
-                if (factory instanceof CSAuthorityFactory) {
-                    CSAuthorityFactory csf = (CSAuthorityFactory) factory;
-                    Set<String> codes = csf.getAuthorityCodes(CoordinateSystem.class);
-                    COORDINATE_SYSTEMS.clear();
-                    for (String code : codes) {
-                        CoordinateSystem cs;
-                        try {
-                            cs = csf.createCoordinateSystem(code);
-                            COORDINATE_SYSTEMS.add(cs);
-                        } catch (FactoryException ex) {
-                            Logger.getLogger(CRSEditor.class.getName()).log(Level.SEVERE, null, ex);
-                        }
-                    }
-                }
-            } catch (FactoryException ex) {
-                Logger.getLogger(CRSEditor.class.getName()).log(Level.SEVERE, null, ex);
-            }
-            allDefsLoaded.countDown();
-        };
-        Runnable crsLoader = () -> {
-            try {
-                //Populate CRS Codes
-                final CRSAuthorityFactory crsFactory = CRS.getAuthorityFactory(null);
-                final Set<String> codes = crsFactory.getAuthorityCodes(CoordinateReferenceSystem.class);
-                for (String code : codes) {
-                    final String desc = crsFactory.getDescriptionText(code).toString();
-                    CRS_CODE.put(code, desc);
-                }
-            } catch (FactoryException ex) {
-                Logger.getLogger(CRSEditor.class.getName()).log(Level.SEVERE, null, ex);
-            }
-            allDefsLoaded.countDown();
-        };
-        Thread pmThread = new Thread(pmLoader);
-        pmThread.setName("PrimeMeridian codes loader");
-        pmThread.setDaemon(true);
-        pmThread.start();
-
-        Thread csThread = new Thread(csLoader);
-        csThread.setName("Coordinate systems loader");
-        csThread.setDaemon(true);
-        csThread.start();
-
-        Thread crsThread = new Thread(crsLoader);
-        crsThread.setName("CRS codes loader");
-        crsThread.setDaemon(true);
-        crsThread.start();
+    /**
+     * Returns the sources filling the combo boxes of the editors, for
+     * statistics.
+     *
+     * @return the sources of CRS codes, prime meridians and coordinate systems
+     */
+    public static List<DefinitionSource<?>> getDefinitionSources() {
+        return Arrays.asList(CodeIndex.getInstance().getSource(), PRIME_MERIDIANS.peekCodes(), COORDINATE_SYSTEMS.peekCodes());
     }
 
     @FXML
@@ -219,9 +176,11 @@ public class CRSEditor extends AnchorPane implements Initializable {
     @FXML
     private ComboBox<String> crsName;
     @FXML
+    private Button findEquivalentsButton;
+    @FXML
     private TextField datumName;
     @FXML
-    private ComboBox<PrimeMeridian> primeMeridian;
+    private ComboBox<String> primeMeridian;
     @FXML
     private Text meridianLongitude;
     @FXML
@@ -229,7 +188,7 @@ public class CRSEditor extends AnchorPane implements Initializable {
     @FXML
     private Spinner<Double> semiMinor;
     @FXML
-    private ComboBox<CoordinateSystem> coordSystemType;
+    private ComboBox<String> coordSystemType;
     @FXML
     private TextArea areaDescription;
     @FXML
@@ -264,11 +223,12 @@ public class CRSEditor extends AnchorPane implements Initializable {
                 return new Task<CoordinateReferenceSystem>() {
                     @Override
                     protected CoordinateReferenceSystem call() throws Exception {
-                        return CRS.forCode(crsCode.getValue());
+                        return CrsCache.getDefault().forCode(crsCode.getValue());
                     }
                 };
             }
         };
+        fetchCrsService.setExecutor(TaskScheduler.getDefault().executor(TaskScheduler.Lane.FOREGROUND));
         fetchCrsService.setOnSucceeded(wse -> setCrs(fetchCrsService.getValue()));
         fetchCrsService.setOnFailed(wse -> System.out.println("failed to load" + crsCode.get()));
         loadFXML();
@@ -292,6 +252,16 @@ public class CRSEditor extends AnchorPane implements Initializable {
         crsCode.set(code);
     }
 
+    /**
+     * Shows the CRS of the given code, from the {@link CrsCache} if it is
+     * there or else created on a background thread.
+     *
+     * @param code authority code like {@code "EPSG:4326"}
+     */
+    public void setCode(String code) {
+        crsCode.set(code);
+    }
+
     /**
      * Initializes the controller class.
      */
@@ -304,11 +274,18 @@ public class CRSEditor extends AnchorPane implements Initializable {
         semiMinor.setValueFactory(new SpinnerValueFactory.DoubleSpinnerValueFactory(0, Double.MAX_VALUE));
 
         primeMeridian.setConverter(PRIME_MERIDIAN_STRING_CONVERTER);
-        ObjectProperty<PrimeMeridian> pm = primeMeridian.valueProperty();
-        StringBinding pmDegrees = Bindings.createStringBinding(() -> pm.get() == null ? "NA" : ANGLE_FORMAT.format(pm.get().getGreenwichLongitude()), pm);
-        meridianLongitude.textProperty().bind(pmDegrees);
+        primeMeridian.setCellFactory(list -> new PrimeMeridianCell());
+        meridianLongitude.setText("NA");
+        primeMeridian.valueProperty().addListener((observable, oldValue, code) -> {
+            meridianLongitude.setText(code == null ? "NA" : "...");
+            resolve(PRIME_MERIDIANS, code, primeMeridian.valueProperty(), pm -> meridianLongitude.setText(ANGLE_FORMAT.format(pm.getGreenwichLongitude())));
+        });
 
         coordSystemType.setConverter(CS_STRING_CONVERTER);
+        coordSystemType.valueProperty().addListener((observable, oldValue, code) -> {
+            axesTable.getItems().clear();
+            resolve(COORDINATE_SYSTEMS, code, coordSystemType.valueProperty(), this::setAxes);
+        });
 
         axisNameColumn.setCellValueFactory(param -> new SimpleObjectProperty<>(Objects.toString(param.getValue().getName().getCode(), "")));
         axisDirectionColumn.setCellValueFactory(param -> new SimpleObjectProperty<>(param.getValue().getDirection()));
@@ -317,16 +294,7 @@ public class CRSEditor extends AnchorPane implements Initializable {
 
         crsName.valueProperty().bindBidirectional(crsCode);
 
-        Thread loadChoices = new Thread(() -> {
-            try {
-                allDefsLoaded.await();
-                Platform.runLater(() -> populateChoices());
-            } catch (InterruptedException ex) {
-                Logger.getLogger(CRSEditor.class.getName()).log(Level.SEVERE, null, ex);
-            }
-        });
-        loadChoices.setDaemon(true);
-        loadChoices.start();
+        populateChoices();
 
         datumName.textProperty().addListener(listener);
         primeMeridian.valueProperty().addListener(listener);
@@ -336,12 +304,96 @@ public class CRSEditor extends AnchorPane implements Initializable {
         areaDescription.textProperty().addListener(listener);
     }
 
+    /**
+     * Fills the combo boxes with the definitions loaded so far, then with
+     * every batch loaded in the background until all are there.
+     */
     private void populateChoices() {
-        crsName.getItems().setAll(CRS_CODE.keySet());
-        TextFields.bindAutoCompletion(crsName.getEditor(), CRS_CODE.keySet().stream().map(en -> CRS_CODE_TO_DESCRIPTION_CONVERTER.toString(en)).collect(Collectors.toList())).prefWidthProperty().bind(crsName.widthProperty());
-        primeMeridian.getItems().setAll(PRIME_MERIDIANS);
-        coordSystemType.getItems().setAll(COORDINATE_SYSTEMS);
-        TextFields.bindAutoCompletion(coordSystemType.getEditor(), COORDINATE_SYSTEMS.stream().map(cs -> CS_STRING_CONVERTER.toString(cs)).collect(Collectors.toList())).prefWidthProperty().bind(coordSystemType.widthProperty());
+        stream(CodeIndex.getInstance().getSource(), entries -> {
+            List<String> codes = new ArrayList<>(entries.size());
+            for (CodeIndex.Entry entry : entries) {
+                codes.add(entry.getIdentifier());
+            }
+            crsName.getItems().addAll(codes);
+        });
+        final AtomicReference<CodeSearch.Result> previous = new AtomicReference<>();
+        TextFields.bindAutoCompletion(crsName.getEditor(), request -> {
+            CodeSearch search = CodeIndex.getInstance().getSearch();
+            if (search == null || request.getUserText().trim().isEmpty()) {
+                return Collections.emptyList();
+            }
+            CodeSearch.Result result = search.search(request.getUserText(), previous.get());
+            previous.set(result);
+            return result.top(MAX_SUGGESTIONS).stream().map(e -> CRS_CODE_TO_DESCRIPTION_CONVERTER.toString(e.getIdentifier())).collect(Collectors.toList());
+        }).prefWidthProperty().bind(crsName.widthProperty());
+        stream(PRIME_MERIDIANS.getCodes(), primeMeridian.getItems()::addAll);
+        stream(COORDINATE_SYSTEMS.getCodes(), coordSystemType.getItems()::addAll);
+        COORDINATE_SYSTEMS.getCodes().whenReady().thenAccept(codes -> Platform.runLater(() -> {
+            TextFields.bindAutoCompletion(coordSystemType.getEditor(), codes.stream().map(CS_STRING_CONVERTER::toString).collect(Collectors.toList())).prefWidthProperty().bind(coordSystemType.widthProperty());
+        }));
+    }
+
+    /**
+     * Gives every batch of the source to the action on the JavaFX thread.
+     */
+    private static <T> void stream(DefinitionSource<T> source, Consumer<List<T>> action) {
+        source.subscribe(batch -> Platform.runLater(() -> action.accept(batch)));
+    }
+
+    /**
+     * Gives an object of a catalogue to the action on the JavaFX thread, once
+     * created, if the combo box still shows it.
+     */
+    private static <T extends IdentifiedObject> void resolve(AuthorityCatalogue<T> catalogue, String code, ObservableValue<String> shown, Consumer<T> action) {
+        if (code == null) {
+            return;
+        }
+        catalogue.get(code).whenComplete((object, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                Logger.getLogger(CRSEditor.class.getName()).log(Level.WARNING, "Cannot create " + code, ex);
+            } else if (code.equals(shown.getValue())) {
+                action.accept(object);
+            }
+        }));
+    }
+
+    /**
+     * Lists a prime meridian by name, with its longitude once it has been
+     * created. Meridians are created when their cell is shown.
+     */
+    private static final class PrimeMeridianCell extends ListCell<String> {
+
+        @Override
+        protected void updateItem(String code, boolean empty) {
+            super.updateItem(code, empty);
+            if (empty || code == null) {
+                setText(null);
+                return;
+            }
+            PrimeMeridian pm = PRIME_MERIDIANS.getIfCreated(code);
+            if (pm != null) {
+                setText(PRIME_MERIDIANS.getName(code) + " (" + ANGLE_FORMAT.format(pm.getGreenwichLongitude()) + ')');
+            } else {
+                setText(PRIME_MERIDIANS.getName(code));
+                PRIME_MERIDIANS.get(code).thenRun(() -> Platform.runLater(() -> {
+                    if (code.equals(getItem())) {
+                        updateItem(code, false);
+                    }
+                }));
+            }
+        }
+    }
+
+    /**
+     * Lists the codes equivalent to the shown CRS, for example one read from
+     * a file, and shows the chosen one.
+     */
+    @FXML
+    private void findEquivalents() {
+        CoordinateReferenceSystem crs = getCrs();
+        if (crs != null) {
+            EquivalentsMenu.show(findEquivalentsButton, crs, this::setCode);
+        }
     }
 
     protected void loadFXML() {
@@ -365,7 +417,7 @@ public class CRSEditor extends AnchorPane implements Initializable {
                 GeodeticDatum datum = (GeodeticDatum) d;
                 datumName.setText(Objects.toString(datum.getName(), ""));
                 PrimeMeridian meridian = datum.getPrimeMeridian();
-                primeMeridian.setValue(meridian);
+                primeMeridian.setValue(PRIME_MERIDIANS.add(meridian));
                 Ellipsoid ellipsoid = datum.getEllipsoid();
                 double semiMajorAxis = ellipsoid.getSemiMajorAxis();
                 double semiMinorAxis = ellipsoid.getSemiMinorAxis();
@@ -373,8 +425,7 @@ public class CRSEditor extends AnchorPane implements Initializable {
                 semiMajor.getValueFactory().setValue(semiMajorAxis);
             }
         }
-        coordSystemType.valueProperty().addListener((observable, oldValue, newValue) -> setAxes(newValue));
-        coordSystemType.setValue(crs.getCoordinateSystem());
+        coordSystemType.setValue(COORDINATE_SYSTEMS.add(crs.getCoordinateSystem()));
         final Extent domainOfValidity = crs.getDomainOfValidity();
         if (domainOfValidity != null) {
             InternationalString description = domainOfValidity.getDescription();
@@ -424,8 +475,15 @@ public class CRSEditor extends AnchorPane implements Initializable {
                 //we have directly received a crs
                 setValues(crs);
             } else if (ob == crsCode) {
-                //crs needs to be constructed from the code
-                fetchCrsService.restart();
+                //crs needs to be constructed from the code, unless it was already
+                CoordinateReferenceSystem cached = CrsCache.getDefault().getIfCached(crsCode.get());
+                if (cached != null) {
+                    fetchCrsService.cancel();
+                    setCrs(cached);
+                    setValues(cached);
+                } else {
+                    fetchCrsService.restart();
+                }
             } else {
                 //get values from all other form fields and construct a new CRS, then setCrs
                 if (!crsCode.getValue().startsWith("Modified")) {
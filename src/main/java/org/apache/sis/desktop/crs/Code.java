@@ -18,10 +18,22 @@
 package org.apache.sis.desktop.crs;
 
 // OpenGIS dependencies
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import org.apache.sis.desktop.TaskScheduler;
+import org.apache.sis.referencing.CRS;
 import org.apache.sis.util.ArgumentChecks;
 import org.opengis.referencing.AuthorityFactory;
 import org.opengis.referencing.IdentifiedObject;
 import org.opengis.util.FactoryException;
+import org.opengis.util.InternationalString;
 
 
 /**
@@ -49,14 +61,27 @@ final class Code {
      */
     private String name;
 
-    private String description;
+    /**
+     * Descriptions resolved so far, shared by all codes and keyed by code.
+     */
+    private static final Map<String, String> DESCRIPTIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Codes for which a background lookup of the description is scheduled.
+     */
+    private static final Set<String> PENDING = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The description, or {@code null} while not yet resolved. Only modified
+     * on the JavaFX thread once the code is displayed.
+     */
+    private ReadOnlyStringWrapper description;
 
     /**
-     * The authority factory to use for fetching the name. Will be set to {@code null} after
-     * {@linkplain #name} has been made available, in order to allow the garbage collector
-     * to do its work if possible.
+     * The authority factory to use for fetching the name. If {@code null}, the
+     * default factory is fetched when first needed.
      */
-    private final AuthorityFactory factory;
+    private AuthorityFactory factory;
 
     /**
      * Creates a code from the specified value.
@@ -71,6 +96,28 @@ final class Code {
         this.code    = code;
     }
 
+    /**
+     * Creates a code with an already known description, typically read from
+     * the {@link CodeIndex}.
+     *
+     * @param code The authority code.
+     * @param description The description of the object, or {@code null} if unknown.
+     */
+    public Code(final String code, final String description) {
+        ArgumentChecks.ensureNonNull("code", code);
+        this.code = code;
+        if (description != null) {
+            DESCRIPTIONS.put(code, description);
+        }
+    }
+
+    private AuthorityFactory factory() throws FactoryException {
+        if (factory == null) {
+            factory = CRS.getAuthorityFactory(null);
+        }
+        return factory;
+    }
+
     /**
      * Create the Object identified by code.
      *
@@ -78,21 +125,113 @@ final class Code {
      * @throws FactoryException
      */
     public IdentifiedObject createObject() throws FactoryException{
-        return factory.createObject(code);
+        return factory().createObject(code);
     }
 
     /**
-     * Returns a description of the object.
+     * Returns a description of the object, querying the factory on the calling
+     * thread if it is not known yet.
      *
      * @return
      */
     public String getDescription(){
-        if (description == null) try {
-            description = factory.getDescriptionText(code).toString();
+        String text = DESCRIPTIONS.get(code);
+        if (text == null) {
+            text = lookupDescription(factoryOrNull());
+        }
+        return text;
+    }
+
+    /**
+     * Returns the description as an observable value which stays {@code null}
+     * until the description is known. Use {@link #resolveDescriptions} to
+     * fetch missing descriptions in the background.
+     *
+     * @return the description property
+     */
+    public ReadOnlyStringProperty descriptionProperty() {
+        if (description == null) {
+            description = new ReadOnlyStringWrapper(this, "description", DESCRIPTIONS.get(code));
+        }
+        return description.getReadOnlyProperty();
+    }
+
+    /**
+     * @return whether the description is available without querying the factory
+     */
+    public boolean isDescriptionResolved() {
+        return DESCRIPTIONS.containsKey(code);
+    }
+
+    private AuthorityFactory factoryOrNull() {
+        try {
+            return factory();
         } catch (FactoryException e) {
-            description = e.getLocalizedMessage();
+            return null;
+        }
+    }
+
+    /**
+     * Queries the factory for the description. Failures are not remembered,
+     * so the description is looked up again when the row is shown again.
+     *
+     * @return the description, or the error message if the lookup failed
+     */
+    private String lookupDescription(AuthorityFactory f) {
+        if (f == null) {
+            return code;
+        }
+        try {
+            InternationalString desc = f.getDescriptionText(code);
+            String text = desc == null ? "" : desc.toString();
+            DESCRIPTIONS.put(code, text);
+            return text;
+        } catch (FactoryException e) {
+            String message = e.getLocalizedMessage();
+            return message != null ? message : code;
+        }
+    }
+
+    /**
+     * Fetches in one background task the descriptions of the given codes which
+     * are not yet known, then updates their {@linkplain #descriptionProperty()
+     * description property} on the JavaFX thread. Must be called from the
+     * JavaFX thread.
+     *
+     * @param codes the codes to resolve
+     * @param lane  priority of the lookup
+     */
+    static void resolveDescriptions(Collection<Code> codes, TaskScheduler.Lane lane) {
+        final List<Code> batch = new ArrayList<>();
+        for (Code c : codes) {
+            String known = DESCRIPTIONS.get(c.code);
+            if (known != null) {
+                if (c.description != null) {
+                    c.description.set(known);
+                }
+            } else if (PENDING.add(c.code)) {
+                batch.add(c);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
         }
-        return description;
+        TaskScheduler.getDefault().submit(() -> {
+            try {
+                for (Code c : batch) {
+                    c.lookupDescription(c.factoryOrNull());
+                }
+            } finally {
+                Platform.runLater(() -> {
+                    //codes which failed stay unresolved and are requested again when displayed
+                    for (Code c : batch) {
+                        PENDING.remove(c.code);
+                        c.descriptionProperty();
+                        c.description.set(DESCRIPTIONS.get(c.code));
+                    }
+                });
+            }
+        }, lane);
     }
 
     /**
@@ -0,0 +1,634 @@
+package org.apache.sis.desktop.crs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.desktop.MainApp;
+import org.apache.sis.desktop.TaskScheduler;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.util.Version;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CompoundCRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.EngineeringCRS;
+import org.opengis.referencing.crs.GeocentricCRS;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.crs.SingleCRS;
+import org.opengis.referencing.crs.TemporalCRS;
+import org.opengis.referencing.crs.VerticalCRS;
+import org.opengis.util.FactoryException;
+import org.opengis.util.InternationalString;
+
+/**
+ * On-disk index of the CRS codes known to the authority factories, with their
+ * description and kind. Querying the EPSG database for thousands of
+ * descriptions takes seconds, so the result is saved in a file which is
+ * memory-mapped on the next launch. The file records the version of every
+ * authority; when one of them changes, only the codes of that authority are
+ * looked up again, in the background.
+ *
+ * @author Siddhesh Rane
+ */
+public final class CodeIndex {
+
+    private static final int MAGIC = 0x53495343;
+    private static final int FORMAT = 3;
+    private static final String FILE_NAME = "crs-codes.idx";
+
+    /**
+     * Number of entries streamed at once while the index is built for the
+     * first time.
+     */
+    private static final int STREAM_BATCH = 256;
+
+    /**
+     * Number of CRS created by one enrichment task before the worker is given
+     * back to the {@link TaskScheduler}.
+     */
+    private static final int ENRICH_CHUNK = 32;
+
+    /**
+     * Number of CRS examined between two saves of the index while enriching.
+     */
+    private static final int ENRICH_SAVE_INTERVAL = 2000;
+
+    /**
+     * Kinds of CRS recorded in the index, by the interface the authority
+     * factory is asked about.
+     */
+    private static final Map<Class<? extends CoordinateReferenceSystem>, String> TYPES = new LinkedHashMap<>();
+    static {
+        TYPES.put(GeographicCRS.class, "Geographic");
+        TYPES.put(ProjectedCRS.class, "Projected");
+        TYPES.put(GeocentricCRS.class, "Geocentric");
+        TYPES.put(VerticalCRS.class, "Vertical");
+        TYPES.put(TemporalCRS.class, "Temporal");
+        TYPES.put(CompoundCRS.class, "Compound");
+        TYPES.put(EngineeringCRS.class, "Engineering");
+    }
+
+    private static final CodeIndex INSTANCE = new CodeIndex();
+
+    /**
+     * Returns the index shared by the application. Reading the index file
+     * starts on the first call.
+     *
+     * @return the shared index
+     */
+    public static CodeIndex getInstance() {
+        INSTANCE.start();
+        return INSTANCE;
+    }
+
+    /**
+     * One authority code.
+     */
+    public static final class Entry {
+
+        private final String authority;
+        private final String code;
+        private final String description;
+        private final String type;
+        private final String areaOfUse;
+        private final String datum;
+        private final long fingerprint;
+        private final long lenientFingerprint;
+
+        /**
+         * Creates an entry whose CRS has not been examined, for lists of
+         * codes built outside of the index.
+         *
+         * @param authority   authority name like "EPSG"
+         * @param code        code in the authority
+         * @param description the description, or {@code null} if unknown
+         * @param type        kind of object, e.g. "Geographic" or "CRS"
+         */
+        public Entry(String authority, String code, String description, String type) {
+            this(authority, code, description, type, null, null, 0, 0);
+        }
+
+        Entry(String authority, String code, String description, String type, String areaOfUse, String datum,
+                long fingerprint, long lenientFingerprint) {
+            this.authority = authority.intern();
+            this.code = code;
+            this.description = description;
+            this.type = type.intern();
+            this.areaOfUse = areaOfUse;
+            this.datum = datum;
+            this.fingerprint = fingerprint;
+            this.lenientFingerprint = lenientFingerprint;
+        }
+
+        public String getAuthority() {
+            return authority;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * @return the code qualified by its authority, e.g. "EPSG:4326"
+         */
+        public String getIdentifier() {
+            return authority + ':' + code;
+        }
+
+        /**
+         * @return the description, or {@code null} if the authority could not
+         *         give it when the index was built
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return kind of object, e.g. "Geographic" or "Projected"
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return description of the domain of validity, or {@code null} if
+         *         the CRS has not been examined yet
+         */
+        public String getAreaOfUse() {
+            return areaOfUse;
+        }
+
+        /**
+         * @return name of the datum, or {@code null} if the CRS has not been
+         *         examined yet
+         */
+        public String getDatum() {
+            return datum;
+        }
+
+        /**
+         * @return hash of the definition of the CRS computed by
+         *         {@link FingerprintIndex}, or 0 if the CRS has not been
+         *         examined yet or could not be created
+         */
+        long getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * @return same as {@link #getFingerprint()} without the axis order
+         */
+        long getLenientFingerprint() {
+            return lenientFingerprint;
+        }
+
+        @Override
+        public String toString() {
+            return getIdentifier() + ' ' + description;
+        }
+    }
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CompletableFuture<List<Entry>> entries = new CompletableFuture<>();
+    private final DefinitionSource<Entry> source = new DefinitionSource<>("CRS codes");
+    private final List<Consumer<List<Entry>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Map<String, String> versions = Collections.emptyMap();
+    private volatile List<Entry> current;
+    private CodeSearch search;
+
+    /**
+     * Entries once every CRS has been examined, replaced when the index is
+     * rebuilt. Guarded by {@code this}.
+     */
+    private CompletableFuture<List<Entry>> examined = new CompletableFuture<>();
+
+    /**
+     * Lane of the enrichment tasks, raised when someone waits for them.
+     */
+    private volatile TaskScheduler.Lane enrichLane = TaskScheduler.Lane.PREFETCH;
+
+    private CodeIndex() {
+    }
+
+    private void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        source.start();
+        TaskScheduler.getDefault().submit(() -> {
+            Snapshot saved = read();
+            if (saved != null) {
+                publish(saved);
+            }
+            TaskScheduler.getDefault().submit(() -> refresh(saved), TaskScheduler.Lane.BACKGROUND);
+        }, TaskScheduler.Lane.FOREGROUND);
+    }
+
+    /**
+     * Returns the entries as soon as they are available. This is the content
+     * of the index file if one exists, even if it turns out to be outdated.
+     * Use {@link #addListener} to learn about updates.
+     *
+     * @return all indexed codes, in authority order
+     */
+    public CompletableFuture<List<Entry>> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the entries once the CRS of all codes have been examined, with
+     * their area of use, datum and fingerprints. Examining every CRS takes
+     * minutes the first time, so asking for it moves the remaining work from
+     * the prefetch lane to the background lane.
+     *
+     * @return the current examined entries
+     */
+    synchronized CompletableFuture<List<Entry>> getExaminedEntries() {
+        enrichLane = TaskScheduler.Lane.BACKGROUND;
+        return examined;
+    }
+
+    /**
+     * Returns the entries of the first publication as they arrive. When there
+     * is no index file yet, codes are streamed while the authorities are
+     * queried instead of all at once at the end.
+     *
+     * @return the source of the first entries
+     */
+    public DefinitionSource<Entry> getSource() {
+        return source;
+    }
+
+    /**
+     * Registers a listener called on a worker thread with the new entries
+     * whenever the index is rebuilt after its first publication.
+     *
+     * @param listener the listener to notify
+     */
+    public void addListener(Consumer<List<Entry>> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<List<Entry>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the full-text search over the current entries, or {@code null}
+     * if no entries have been published yet. The search is built on first
+     * call after each publication, so this method should not be invoked from
+     * the JavaFX thread the first time.
+     *
+     * @return search over the current entries
+     */
+    public synchronized CodeSearch getSearch() {
+        final List<Entry> list = current;
+        if (list == null) {
+            return null;
+        }
+        if (search == null || search.getEntries() != list) {
+            search = new CodeSearch(list);
+        }
+        return search;
+    }
+
+    private void publish(Snapshot snapshot) {
+        versions = snapshot.versions;
+        current = snapshot.entries;
+        final boolean complete = snapshot.entries.stream().allMatch(e -> e.areaOfUse != null);
+        synchronized (this) {
+            if (complete) {
+                if (!examined.complete(snapshot.entries)) {
+                    examined = CompletableFuture.completedFuture(snapshot.entries);
+                }
+            } else if (examined.isDone()) {
+                examined = new CompletableFuture<>();
+            }
+        }
+        if (entries.complete(snapshot.entries)) {
+            //entries streamed while rebuilding are in the same order
+            source.publish(snapshot.entries.subList(Math.min(source.size(), snapshot.entries.size()), snapshot.entries.size()));
+            source.complete();
+        } else {
+            listeners.forEach(l -> l.accept(snapshot.entries));
+        }
+    }
+
+    /**
+     * Returns the version of the authority the current entries were built
+     * from, for example the EPSG database version.
+     *
+     * @param authority authority name like "EPSG"
+     * @return version string, or {@code null} if the authority is unknown
+     */
+    public String getVersion(String authority) {
+        return versions.get(authority);
+    }
+
+    /**
+     * Compares the versions recorded in the index with the installed
+     * authorities and looks up again the codes of those which changed. Then
+     * completes the entries which have not been examined yet.
+     */
+    private void refresh(Snapshot saved) {
+        Map<String, String> installed = new HashMap<>();
+        boolean changed = saved == null;
+        if (saved != null) {
+            for (String authority : saved.versions.keySet()) {
+                String version = versionOf(authority);
+                installed.put(authority, version);
+                changed |= !version.equals(saved.versions.get(authority));
+            }
+        }
+        Snapshot snapshot = saved;
+        if (changed) {
+            try {
+                snapshot = rebuild(saved, installed, saved == null ? source::publish : null);
+                write(snapshot);
+                publish(snapshot);
+            } catch (FactoryException ex) {
+                Logger.getLogger(CodeIndex.class.getName()).log(Level.SEVERE, null, ex);
+                entries.complete(Collections.emptyList());
+                synchronized (this) {
+                    examined.complete(Collections.emptyList());
+                }
+                source.fail(ex);
+                return;
+            }
+        }
+        final Snapshot unexamined = snapshot;
+        if (unexamined.entries.stream().anyMatch(e -> e.areaOfUse == null)) {
+            TaskScheduler.getDefault().submit(() -> enrich(unexamined), enrichLane);
+        }
+    }
+
+    /**
+     * Creates every CRS not yet examined to record its area of use and datum
+     * name, which are searchable but not available from the description, and
+     * the fingerprints used by {@link FingerprintIndex}. This is slow, so it
+     * runs at the lowest priority unless someone waits for it, a few codes
+     * per task, and saves its progress from time to time.
+     */
+    private void enrich(Snapshot snapshot) {
+        final CRSAuthorityFactory factory;
+        try {
+            factory = CRS.getAuthorityFactory(null);
+        } catch (FactoryException ex) {
+            Logger.getLogger(CodeIndex.class.getName()).log(Level.WARNING, null, ex);
+            synchronized (this) {
+                examined.complete(snapshot.entries);
+            }
+            return;
+        }
+        final Snapshot work = new Snapshot();
+        work.versions.putAll(snapshot.versions);
+        work.entries.addAll(snapshot.entries);
+        enrich(work, factory, 0, 0);
+    }
+
+    /**
+     * Examines at most {@link #ENRICH_CHUNK} entries from the given position,
+     * then submits the rest as a new task so that other work waiting for a
+     * worker runs in between.
+     *
+     * @param start   index of the first entry to look at
+     * @param unsaved number of entries examined since the index was saved
+     */
+    private void enrich(Snapshot work, CRSAuthorityFactory factory, int start, int unsaved) {
+        final List<Entry> list = work.entries;
+        int i = start;
+        for (int n = 0; i < list.size() && n < ENRICH_CHUNK; i++) {
+            Entry e = list.get(i);
+            if (e.areaOfUse == null) {
+                list.set(i, examine(factory, e));
+                n++;
+                unsaved++;
+            }
+        }
+        if (i >= list.size()) {
+            write(work);
+            publish(work);
+            return;
+        }
+        if (unsaved >= ENRICH_SAVE_INTERVAL) {
+            write(work);
+            unsaved = 0;
+        }
+        final int next = i;
+        final int pending = unsaved;
+        TaskScheduler.getDefault().submit(() -> enrich(work, factory, next, pending), enrichLane);
+    }
+
+    private static Entry examine(CRSAuthorityFactory factory, Entry e) {
+        String area = "";
+        String datum = "";
+        long fingerprint = 0;
+        long lenientFingerprint = 0;
+        try {
+            CoordinateReferenceSystem crs = factory.createCoordinateReferenceSystem(e.getIdentifier());
+            Extent domain = crs.getDomainOfValidity();
+            if (domain != null && domain.getDescription() != null) {
+                area = domain.getDescription().toString();
+            }
+            if (crs instanceof SingleCRS && ((SingleCRS) crs).getDatum() != null) {
+                datum = ((SingleCRS) crs).getDatum().getName().getCode();
+            }
+            fingerprint = FingerprintIndex.hash(FingerprintIndex.fingerprint(crs, true));
+            lenientFingerprint = FingerprintIndex.hash(FingerprintIndex.fingerprint(crs, false));
+        } catch (FactoryException | RuntimeException ex) {
+            Logger.getLogger(CodeIndex.class.getName()).log(Level.FINE, null, ex);
+        }
+        return new Entry(e.authority, e.code, e.description, e.type, area, datum, fingerprint, lenientFingerprint);
+    }
+
+    /**
+     * Looks up the codes of the authorities, reusing the entries of unchanged
+     * authorities.
+     *
+     * @param progress receives batches of entries while they are looked up,
+     *                 or null
+     */
+    private static Snapshot rebuild(Snapshot saved, Map<String, String> current, Consumer<List<Entry>> progress) throws FactoryException {
+        final Map<String, Entry> reusable = new HashMap<>();
+        if (saved != null) {
+            for (Entry e : saved.entries) {
+                if (e.description != null && Objects.equals(saved.versions.get(e.authority), current.get(e.authority))) {
+                    reusable.put(e.getIdentifier(), e);
+                }
+            }
+        }
+        final CRSAuthorityFactory factory = CRS.getAuthorityFactory(null);
+        final Map<String, String> types = new HashMap<>();
+        for (Map.Entry<Class<? extends CoordinateReferenceSystem>, String> type : TYPES.entrySet()) {
+            try {
+                for (String code : factory.getAuthorityCodes(type.getKey())) {
+                    types.putIfAbsent(code, type.getValue());
+                }
+            } catch (FactoryException ex) {
+                Logger.getLogger(CodeIndex.class.getName()).log(Level.FINE, null, ex);
+            }
+        }
+        final Snapshot snapshot = new Snapshot();
+        for (String identifier : factory.getAuthorityCodes(CoordinateReferenceSystem.class)) {
+            Entry entry = reusable.get(identifier);
+            if (entry == null) {
+                int colon = identifier.indexOf(':');
+                String authority = colon > 0 ? identifier.substring(0, colon) : "";
+                String code = identifier.substring(colon + 1);
+                String description;
+                try {
+                    InternationalString text = factory.getDescriptionText(identifier);
+                    description = text == null ? "" : text.toString();
+                } catch (FactoryException ex) {
+                    //left unknown, so it is looked up again when displayed and on next rebuild
+                    Logger.getLogger(CodeIndex.class.getName()).log(Level.FINE, null, ex);
+                    description = null;
+                }
+                entry = new Entry(authority, code, description, types.getOrDefault(identifier, "CRS"), null, null, 0, 0);
+            }
+            if (!snapshot.versions.containsKey(entry.authority)) {
+                snapshot.versions.put(entry.authority, current.computeIfAbsent(entry.authority, CodeIndex::versionOf));
+            }
+            snapshot.entries.add(entry);
+            if (progress != null && snapshot.entries.size() % STREAM_BATCH == 0) {
+                progress.accept(snapshot.entries.subList(snapshot.entries.size() - STREAM_BATCH, snapshot.entries.size()));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns a string which changes whenever the definitions of the given
+     * authority may have changed: the authority edition (the EPSG database
+     * version) and the SIS version.
+     */
+    static String versionOf(String authority) {
+        String edition = null;
+        try {
+            Citation citation = CRS.getAuthorityFactory(authority).getAuthority();
+            if (citation != null && citation.getEdition() != null) {
+                edition = citation.getEdition().toString();
+            }
+        } catch (FactoryException ex) {
+            Logger.getLogger(CodeIndex.class.getName()).log(Level.FINE, null, ex);
+        }
+        return Version.SIS + "/" + edition;
+    }
+
+    private static Path file() throws IOException {
+        return MainApp.getApplicationDirectory("cache").resolve(FILE_NAME);
+    }
+
+    private static Snapshot read() {
+        try {
+            Path file = file();
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                    return null;
+                }
+                Snapshot snapshot = new Snapshot();
+                for (int n = buffer.getInt(); --n >= 0;) {
+                    snapshot.versions.put(readString(buffer), readString(buffer));
+                }
+                int n = buffer.getInt();
+                ((ArrayList<Entry>) snapshot.entries).ensureCapacity(n);
+                while (--n >= 0) {
+                    snapshot.entries.add(new Entry(readString(buffer), readString(buffer), readString(buffer),
+                            readString(buffer), readString(buffer), readString(buffer), buffer.getLong(), buffer.getLong()));
+                }
+                return snapshot;
+            }
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(CodeIndex.class.getName()).log(Level.WARNING, "Ignoring unreadable CRS index", ex);
+            return null;
+        }
+    }
+
+    private static void write(Snapshot snapshot) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(snapshot.entries.size() * 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(snapshot.versions.size());
+            for (Map.Entry<String, String> version : snapshot.versions.entrySet()) {
+                writeString(out, version.getKey());
+                writeString(out, version.getValue());
+            }
+            out.writeInt(snapshot.entries.size());
+            for (Entry e : snapshot.entries) {
+                writeString(out, e.authority);
+                writeString(out, e.code);
+                writeString(out, e.description);
+                writeString(out, e.type);
+                writeString(out, e.areaOfUse);
+                writeString(out, e.datum);
+                out.writeLong(e.fingerprint);
+                out.writeLong(e.lenientFingerprint);
+            }
+            Path file = file();
+            Path tmp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+            Files.write(tmp, bytes.toByteArray());
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(CodeIndex.class.getName()).log(Level.WARNING, "Could not save CRS index", ex);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static final class Snapshot {
+
+        final Map<String, String> versions = new LinkedHashMap<>();
+        final List<Entry> entries = new ArrayList<>();
+    }
+}
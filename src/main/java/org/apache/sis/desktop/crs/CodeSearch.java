@@ -0,0 +1,273 @@
+package org.apache.sis.desktop.crs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the code, description, area of use and datum name of
+ * {@link CodeIndex} entries. Queries are split in words and every word must be
+ * the prefix of a word of the entry (or, for numbers, appear anywhere in the
+ * code). Results are ranked by where the words were found, codes first.
+ * Instances are immutable and can be used from any thread.
+ *
+ * @author Siddhesh Rane
+ */
+public final class CodeSearch {
+
+    private static final int CODE = 0, DESCRIPTION = 1, DATUM = 2, AREA = 3;
+
+    /**
+     * Score of a word found in each field, by field. A word equal to the
+     * indexed word scores twice as much as a mere prefix.
+     */
+    private static final int[] WEIGHTS = {8, 4, 2, 1};
+
+    private final List<CodeIndex.Entry> entries;
+
+    /**
+     * All distinct words in sorted order, and for each of them the sorted
+     * indices of entries containing that word.
+     */
+    private final String[] terms;
+    private final int[][] postings;
+
+    /**
+     * Words of each entry and the field each word comes from, for scoring.
+     */
+    private final String[][] words;
+    private final byte[][] fields;
+    private final String[] codes;
+
+    /**
+     * Builds the index. Takes tens of milliseconds for the EPSG database, so
+     * should not be invoked on the JavaFX thread.
+     *
+     * @param entries the entries to index
+     */
+    public CodeSearch(List<CodeIndex.Entry> entries) {
+        this.entries = entries;
+        final int n = entries.size();
+        words = new String[n][];
+        fields = new byte[n][];
+        codes = new String[n];
+        final Map<String, List<Integer>> index = new TreeMap<>();
+        final Map<String, String> unique = new HashMap<>();
+        final List<String> w = new ArrayList<>();
+        final List<Byte> f = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            CodeIndex.Entry e = entries.get(i);
+            w.clear();
+            f.clear();
+            codes[i] = e.getCode().toLowerCase(Locale.ROOT);
+            tokenize(e.getIdentifier(), CODE, w, f);
+            tokenize(e.getDescription(), DESCRIPTION, w, f);
+            tokenize(e.getDatum(), DATUM, w, f);
+            tokenize(e.getAreaOfUse(), AREA, w, f);
+            words[i] = w.toArray(new String[w.size()]);
+            fields[i] = new byte[f.size()];
+            for (int j = 0; j < fields[i].length; j++) {
+                fields[i][j] = f.get(j);
+            }
+            for (int j = 0; j < words[i].length; j++) {
+                String word = unique.computeIfAbsent(words[i][j], k -> k);
+                words[i][j] = word;
+                List<Integer> posting = index.computeIfAbsent(word, k -> new ArrayList<>());
+                if (posting.isEmpty() || posting.get(posting.size() - 1) != i) {
+                    posting.add(i);
+                }
+            }
+        }
+        terms = index.keySet().toArray(new String[index.size()]);
+        postings = new int[terms.length][];
+        int t = 0;
+        for (List<Integer> posting : index.values()) {
+            postings[t++] = posting.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static void tokenize(String text, int field, List<String> words, List<Byte> fields) {
+        if (text == null) {
+            return;
+        }
+        final int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean letter = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                fields.add((byte) field);
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * @return the indexed entries, in their original order
+     */
+    public List<CodeIndex.Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Searches the entries matching all words of the given text. If the text
+     * extends the text of a previous result, only the entries of that result
+     * are examined, which makes typing one more character cheap.
+     *
+     * @param text     the words to search
+     * @param previous the result of the previous search, or {@code null}
+     * @return ranked matches
+     */
+    public Result search(String text, Result previous) {
+        final String query = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        final List<String> tokens = new ArrayList<>();
+        tokenize(query, CODE, tokens, new ArrayList<>());
+        if (tokens.isEmpty()) {
+            int[] all = new int[entries.size()];
+            Arrays.setAll(all, i -> i);
+            return new Result(query, all);
+        }
+        final int[] candidates;
+        if (previous != null && previous.search == this && !previous.query.isEmpty() && query.startsWith(previous.query)) {
+            candidates = previous.ids;
+        } else {
+            String longest = Collections.max(tokens, (a, b) -> Integer.compare(a.length(), b.length()));
+            candidates = candidates(longest);
+        }
+        int[] ids = new int[candidates.length];
+        int[] scores = new int[candidates.length];
+        int count = 0;
+        for (int id : candidates) {
+            int score = score(id, tokens);
+            if (score > 0) {
+                ids[count] = id;
+                scores[count++] = score;
+            }
+        }
+        return new Result(query, sort(Arrays.copyOf(ids, count), Arrays.copyOf(scores, count)));
+    }
+
+    /**
+     * Returns the sorted ids of entries having a word starting with the given
+     * prefix or, if the prefix is a number, a code containing it.
+     */
+    private int[] candidates(String prefix) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) {
+            from = ~from;
+        }
+        boolean[] found = new boolean[entries.size()];
+        for (int t = from; t < terms.length && terms[t].startsWith(prefix); t++) {
+            for (int id : postings[t]) {
+                found[id] = true;
+            }
+        }
+        if (Character.isDigit(prefix.charAt(0))) {
+            for (int i = 0; i < codes.length; i++) {
+                found[i] |= codes[i].contains(prefix);
+            }
+        }
+        int count = 0;
+        int[] ids = new int[found.length];
+        for (int i = 0; i < found.length; i++) {
+            if (found[i]) {
+                ids[count++] = i;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Returns the score of an entry, or 0 if one of the tokens does not match.
+     */
+    private int score(int id, List<String> tokens) {
+        final String[] w = words[id];
+        final byte[] f = fields[id];
+        int total = 0;
+        for (String token : tokens) {
+            int best = 0;
+            for (int j = 0; j < w.length; j++) {
+                if (w[j].startsWith(token)) {
+                    int s = WEIGHTS[f[j]] * (w[j].length() == token.length() ? 2 : 1);
+                    best = Math.max(best, s);
+                }
+            }
+            if (best == 0 && Character.isDigit(token.charAt(0)) && codes[id].contains(token)) {
+                best = 1;
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the ids ordered by decreasing score, then by original order.
+     */
+    private static int[] sort(int[] ids, int[] scores) {
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) -scores[i] << 32) | ids[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[ids.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Entries matching a query, best first.
+     */
+    public final class Result {
+
+        private final CodeSearch search = CodeSearch.this;
+        private final String query;
+        private final int[] ids;
+
+        private Result(String query, int[] ids) {
+            this.query = query;
+            this.ids = ids;
+        }
+
+        /**
+         * @return number of matching entries
+         */
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * Returns positions of the matches in the list given to the
+         * {@link CodeSearch} constructor, best first.
+         *
+         * @return indices of matching entries
+         */
+        public int[] getIndices() {
+            return ids.clone();
+        }
+
+        /**
+         * @param limit maximum number of entries to return
+         * @return the best matching entries
+         */
+        public List<CodeIndex.Entry> top(int limit) {
+            int n = Math.min(limit, ids.length);
+            List<CodeIndex.Entry> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                list.add(entries.get(ids[i]));
+            }
+            return list;
+        }
+    }
+}
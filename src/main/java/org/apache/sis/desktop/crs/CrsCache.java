@@ -0,0 +1,137 @@
+package org.apache.sis.desktop.crs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.sis.referencing.CRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+
+/**
+ * Coordinate reference systems created from their authority code, shared by
+ * the whole application so that going back to a CRS does not query the EPSG
+ * database again. Concurrent requests for the same code wait for a single
+ * lookup, made by the first caller. The most recently used CRS are kept, up
+ * to the number given by the {@code sis.desktop.crsCacheSize} system
+ * property, 128 by default. Failed lookups are not cached. CRS not in memory
+ * are looked for in the {@link CrsSnapshotStore} before the authority.
+ *
+ * @author Siddhesh Rane
+ */
+public final class CrsCache {
+
+    private static final CrsCache DEFAULT = new CrsCache(Integer.getInteger("sis.desktop.crsCacheSize", 128));
+
+    /**
+     * Returns the cache shared by the whole application.
+     *
+     * @return the default cache
+     */
+    public static CrsCache getDefault() {
+        return DEFAULT;
+    }
+
+    private final int capacity;
+    private final Map<String, CompletableFuture<CoordinateReferenceSystem>> entries;
+    private long hits, misses, failures;
+
+    /**
+     * @param capacity maximal number of CRS kept
+     */
+    public CrsCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, CompletableFuture<CoordinateReferenceSystem>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<CoordinateReferenceSystem>> eldest) {
+                return size() > CrsCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the CRS of the given code, looking it up if it is not cached.
+     * This method may block and must not be called from the JavaFX thread.
+     *
+     * @param code authority code like {@code "EPSG:4326"}
+     * @return the CRS
+     * @throws FactoryException if the code is unknown or the lookup failed
+     */
+    public CoordinateReferenceSystem forCode(String code) throws FactoryException {
+        final CompletableFuture<CoordinateReferenceSystem> future;
+        final boolean lookup;
+        synchronized (this) {
+            CompletableFuture<CoordinateReferenceSystem> cached = entries.get(code);
+            lookup = cached == null;
+            if (lookup) {
+                misses++;
+                future = new CompletableFuture<>();
+                entries.put(code, future);
+            } else {
+                hits++;
+                future = cached;
+            }
+        }
+        if (lookup) {
+            try {
+                //a snapshot saved by a previous run avoids the database round-trips
+                CrsSnapshotStore snapshots = CrsSnapshotStore.getDefault();
+                CoordinateReferenceSystem crs = snapshots.get(code);
+                if (crs == null) {
+                    crs = CRS.forCode(code);
+                    snapshots.put(code, crs);
+                }
+                future.complete(crs);
+            } catch (FactoryException | RuntimeException ex) {
+                synchronized (this) {
+                    failures++;
+                    entries.remove(code, future);
+                }
+                future.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            //another caller looked the code up and failed
+            Throwable cause = ex.getCause();
+            if (cause instanceof FactoryException) {
+                throw (FactoryException) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the CRS of the given code if it is cached, without waiting.
+     *
+     * @param code authority code like {@code "EPSG:4326"}
+     * @return the CRS, or null
+     */
+    public synchronized CoordinateReferenceSystem getIfCached(String code) {
+        CompletableFuture<CoordinateReferenceSystem> cached = entries.get(code);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            hits++;
+            return cached.join();
+        }
+        return null;
+    }
+
+    /**
+     * Forgets the CRS of the given code, for example because its definition
+     * changed in the authority.
+     *
+     * @param code authority code like {@code "EPSG:4326"}
+     */
+    public synchronized void invalidate(String code) {
+        entries.remove(code);
+    }
+
+    @Override
+    public synchronized String toString() {
+        long requests = hits + misses;
+        return String.format("CRS cache: %d of %d, %d hits, %d misses (%.0f%% hit rate), %d failed",
+                entries.size(), capacity, hits, misses, requests == 0 ? 0.0 : 100.0 * hits / requests, failures);
+    }
+}
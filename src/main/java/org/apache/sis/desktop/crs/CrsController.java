@@ -1,34 +1,29 @@
 package org.apache.sis.desktop.crs;
 
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.Set;
-import java.util.function.Predicate;
+import java.util.function.Consumer;
 import javafx.application.Platform;
-import javafx.beans.binding.Bindings;
-import javafx.beans.binding.ObjectBinding;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
-import org.apache.sis.referencing.CRS;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
-import org.opengis.util.FactoryException;
+import org.apache.sis.desktop.TaskScheduler;
 
 /**
  * FXML Controller class
@@ -48,12 +43,22 @@ public class CrsController implements Initializable {
     @FXML
     private TableColumn<Code, String> description;
 
-    private final ObservableList<Code> registeredCodes = FXCollections.observableArrayList();
-    private final FilteredList<Code> filteredCodes;
+    /**
+     * All codes, in the same order as the entries of {@link #search}.
+     */
+    private List<Code> registeredCodes = new ArrayList<>();
+    private CodeSearch search;
+    private CodeSearch.Result lastResult;
+    private final ObservableList<Code> shownCodes = FXCollections.observableArrayList();
+    private CRSEditor crsEditor;
+    private Button backButton;
 
-    public CrsController() {
-        filteredCodes = new FilteredList(registeredCodes);
-    }
+    /**
+     * Strong reference to the listener given weakly to the shared
+     * {@link CodeIndex}, which would otherwise keep this controller reachable
+     * for the life of the application.
+     */
+    private final Consumer<List<CodeIndex.Entry>> entriesListener = this::setEntries;
 
     /**
      * Initializes the controller class.
@@ -69,57 +74,163 @@ public class CrsController implements Initializable {
                      }
         );
         code.setCellValueFactory((TableColumn.CellDataFeatures<Code, String> param) -> new SimpleStringProperty(param.getValue().getCode()));
-        description.setCellValueFactory((TableColumn.CellDataFeatures<Code, String> param) -> new SimpleStringProperty(param.getValue().getDescription()));
-
-        Predicate<Code> predicate = (c) -> filter.getText().isEmpty() || c.getCode().toLowerCase().contains(filter.getText().toLowerCase());
-        ObjectBinding<Predicate<Code>> predicateBinding
-                = Bindings.<Predicate<Code>>createObjectBinding(() -> predicate, filter.textProperty());
-        filteredCodes.predicateProperty().bind(predicateBinding);
-        table.setItems(filteredCodes);
-
-        new Thread() {
-            @Override
-            public void run() {
-                try {
-                    List<Code> codes = getCodes();
-                    Platform.runLater(() -> {
-                        registeredCodes.setAll(codes);
-                        table.setPlaceholder(new Label(""));
-                    });
-                } catch (FactoryException ex) {
-                }
-            }
-        }.start();
+        description.setCellValueFactory((TableColumn.CellDataFeatures<Code, String> param) -> param.getValue().descriptionProperty());
+        description.setCellFactory(column -> new DescriptionCell());
+
+        filter.textProperty().addListener(ob -> applyFilter());
+        table.setItems(shownCodes);
+
+        CodeIndex index = CodeIndex.getInstance();
+        index.getEntries().thenAcceptAsync(this::setEntries, TaskScheduler.getDefault().executor(TaskScheduler.Lane.FOREGROUND));
+        index.addListener(new WeakEntriesListener(entriesListener));
 
         MenuItem edit = new MenuItem("Edit");
         edit.setOnAction(ae -> editCrs());
         table.setContextMenu(new ContextMenu(edit));
     }
 
-    private List<Code> getCodes() throws FactoryException {
-        final CRSAuthorityFactory factory = CRS.getAuthorityFactory(null);
-        final Set<String> strs = factory.getAuthorityCodes(CoordinateReferenceSystem.class);
-        final List<Code> codes = new ArrayList<>();
-        for (String str : strs) {
-            codes.add(new Code(factory, str));
+    private void setEntries(List<CodeIndex.Entry> entries) {
+        List<Code> codes = getCodes(entries);
+        CodeSearch newSearch = CodeIndex.getInstance().getSearch();
+        if (newSearch == null || newSearch.getEntries() != entries) {
+            newSearch = new CodeSearch(entries);
+        }
+        final CodeSearch s = newSearch;
+        Platform.runLater(() -> {
+            registeredCodes = codes;
+            search = s;
+            lastResult = null;
+            applyFilter();
+            table.setPlaceholder(new Label(""));
+        });
+    }
+
+    /**
+     * Shows the codes matching the filter text, best matches first. Each
+     * keystroke narrows the previous result instead of scanning all codes.
+     */
+    private void applyFilter() {
+        final String text = filter.getText();
+        if (search == null || text == null || text.trim().isEmpty()) {
+            lastResult = null;
+            shownCodes.setAll(registeredCodes);
+            return;
+        }
+        lastResult = search.search(text, lastResult);
+        final int[] indices = lastResult.getIndices();
+        final List<Code> matches = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            matches.add(registeredCodes.get(i));
+        }
+        shownCodes.setAll(matches);
+    }
+
+    private static List<Code> getCodes(List<CodeIndex.Entry> entries) {
+        final List<Code> codes = new ArrayList<>(entries.size());
+        for (CodeIndex.Entry entry : entries) {
+            codes.add(new Code(entry.getIdentifier(), entry.getDescription()));
         }
         return codes;
     }
 
+    /*
+     * Descriptions not found in the index are looked up for the rows being
+     * displayed. Requests made by cells during one pulse are merged into a
+     * single batch, followed by a prefetch of the next screen in the direction
+     * the user is scrolling.
+     */
+    private int requestedFirst = Integer.MAX_VALUE;
+    private int requestedLast = -1;
+    private int previousFirst;
+    private boolean flushScheduled;
+
+    private void requestDescription(int row) {
+        requestedFirst = Math.min(requestedFirst, row);
+        requestedLast = Math.max(requestedLast, row);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Platform.runLater(this::flushDescriptionRequests);
+        }
+    }
+
+    private void flushDescriptionRequests() {
+        flushScheduled = false;
+        final List<Code> items = table.getItems();
+        final int first = Math.min(requestedFirst, items.size());
+        final int last = Math.min(requestedLast + 1, items.size());
+        requestedFirst = Integer.MAX_VALUE;
+        requestedLast = -1;
+        if (first >= last) {
+            return;
+        }
+        Code.resolveDescriptions(items.subList(first, last), TaskScheduler.Lane.FOREGROUND);
+        final int page = last - first;
+        if (first >= previousFirst) {
+            Code.resolveDescriptions(items.subList(last, Math.min(items.size(), last + page)), TaskScheduler.Lane.PREFETCH);
+        } else {
+            Code.resolveDescriptions(items.subList(Math.max(0, first - page), first), TaskScheduler.Lane.PREFETCH);
+        }
+        previousFirst = first;
+    }
+
+    /**
+     * Shows a placeholder until the description of the code is known.
+     */
+    private final class DescriptionCell extends TableCell<Code, String> {
+
+        @Override
+        protected void updateItem(String item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty) {
+                setText(null);
+            } else if (item == null) {
+                setText("\u2026");
+                requestDescription(getIndex());
+            } else {
+                setText(item);
+            }
+        }
+    }
+
+    /**
+     * Forwards updates of the index to a listener as long as it is reachable
+     * from elsewhere, then unregisters itself.
+     */
+    private static final class WeakEntriesListener implements Consumer<List<CodeIndex.Entry>> {
+
+        private final WeakReference<Consumer<List<CodeIndex.Entry>>> listener;
+
+        WeakEntriesListener(Consumer<List<CodeIndex.Entry>> listener) {
+            this.listener = new WeakReference<>(listener);
+        }
+
+        @Override
+        public void accept(List<CodeIndex.Entry> entries) {
+            Consumer<List<CodeIndex.Entry>> l = listener.get();
+            if (l != null) {
+                l.accept(entries);
+            } else {
+                CodeIndex.getInstance().removeListener(this);
+            }
+        }
+    }
+
     private void editCrs() {
         Code code = table.getSelectionModel().getSelectedItem();
         if (code == null) {
             return;
         }
-        CoordinateReferenceSystem crs;
-
-        CRSEditor crsEditor = new CRSEditor(code.getCode());
-        VBox.setVgrow(crsEditor, Priority.ALWAYS);
-        Button backButton = new Button("Back to CRS list");
-        backButton.setOnAction(ae -> {
-            root.getChildren().clear();
-            root.getChildren().addAll(filter, table);
-        });
+        //one editor is reused, the CRS themselves are cached by CrsCache
+        if (crsEditor == null) {
+            crsEditor = new CRSEditor();
+            VBox.setVgrow(crsEditor, Priority.ALWAYS);
+            backButton = new Button("Back to CRS list");
+            backButton.setOnAction(ae -> {
+                root.getChildren().clear();
+                root.getChildren().addAll(filter, table);
+            });
+        }
+        crsEditor.setCode(code.getCode());
         root.getChildren().clear();
         root.getChildren().addAll(backButton, crsEditor);
     }
@@ -0,0 +1,302 @@
+package org.apache.sis.desktop.crs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.desktop.MainApp;
+import org.apache.sis.desktop.TaskScheduler;
+import org.apache.sis.io.wkt.Convention;
+import org.apache.sis.io.wkt.WKTFormat;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.util.ComparisonMode;
+import org.apache.sis.util.Utilities;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+
+/**
+ * CRS created from authority codes, kept on disk between runs as WKT so that
+ * a CRS seen before is parsed from its text instead of being assembled from
+ * the EPSG database. The WKT follows the internal convention of SIS, a WKT 2
+ * which keeps the identifiers and names of every component, so that a parsed
+ * CRS shows the same prime meridian and coordinate system codes as one
+ * created by the authority. Every snapshot records the version of its
+ * authority, as given by {@link CodeIndex}. When the installed version
+ * differs, outdated snapshots are created again from the authority on the
+ * prefetch lane, and the {@link CrsCache} entries whose definition changed
+ * are invalidated. Until then, snapshots are trusted.
+ *
+ * @author Siddhesh Rane
+ */
+public final class CrsSnapshotStore {
+
+    private static final int MAGIC = 0x53495357;
+    private static final int FORMAT = 2;
+    private static final String FILE_NAME = "crs-snapshots.bin";
+
+    /**
+     * Number of new snapshots after which the file is written without
+     * waiting for the application to stop.
+     */
+    private static final int SAVE_THRESHOLD = 32;
+
+    private static CrsSnapshotStore instance;
+
+    /**
+     * Returns the store shared by the whole application, reading it from disk
+     * and starting the validation of outdated snapshots on first call.
+     *
+     * @return the default store
+     */
+    public static synchronized CrsSnapshotStore getDefault() {
+        if (instance == null) {
+            Path file = null;
+            try {
+                file = MainApp.getApplicationDirectory("cache").resolve(FILE_NAME);
+            } catch (IOException ex) {
+                Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            instance = new CrsSnapshotStore(file);
+            TaskScheduler.getDefault().submit(instance::refresh, TaskScheduler.Lane.PREFETCH);
+        }
+        return instance;
+    }
+
+    private final Path file;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, String> installedVersions = new ConcurrentHashMap<>();
+    private final AtomicInteger unsaved = new AtomicInteger();
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong refreshed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param file where the snapshots are kept, or {@code null} for a store
+     *             in memory only
+     */
+    public CrsSnapshotStore(Path file) {
+        this.file = file;
+        if (file != null && Files.isRegularFile(file)) {
+            load();
+        }
+    }
+
+    /**
+     * Returns the CRS of the given code if a snapshot of it exists, without
+     * querying the authority. Snapshots known to be outdated are ignored.
+     *
+     * @param code authority code like {@code "EPSG:4326"}
+     * @return the CRS, or null
+     */
+    public CoordinateReferenceSystem get(String code) {
+        Snapshot snapshot = snapshots.get(code);
+        if (snapshot == null) {
+            return null;
+        }
+        String installed = installedVersions.get(authorityOf(code));
+        if (installed != null && !installed.equals(snapshot.version)) {
+            return null;
+        }
+        try {
+            CoordinateReferenceSystem crs = parse(snapshot.wkt);
+            parsed.incrementAndGet();
+            return crs;
+        } catch (ParseException | ClassCastException ex) {
+            Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.WARNING, "Dropping unreadable snapshot of " + code, ex);
+            snapshots.remove(code, snapshot);
+            unsaved.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Records the CRS created for a code. CRS which can not be written as WKT
+     * without loss are not recorded.
+     *
+     * @param code authority code like {@code "EPSG:4326"}
+     * @param crs  the CRS created by the authority
+     */
+    public void put(String code, CoordinateReferenceSystem crs) {
+        String authority = authorityOf(code);
+        String version = installedVersions.computeIfAbsent(authority, CodeIndex::versionOf);
+        String wkt;
+        try {
+            wkt = format(crs);
+        } catch (RuntimeException ex) {
+            Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.FINE, "Cannot snapshot " + code, ex);
+            return;
+        }
+        if (wkt == null) {
+            return;
+        }
+        snapshots.put(code, new Snapshot(version, wkt));
+        if (unsaved.incrementAndGet() >= SAVE_THRESHOLD) {
+            TaskScheduler.getDefault().submit(this::save, TaskScheduler.Lane.PREFETCH);
+        }
+    }
+
+    /**
+     * Creates again from the authority the snapshots recorded with another
+     * version than the installed one. Snapshots whose definition did not
+     * change are only given the new version.
+     */
+    private void refresh() {
+        for (Map.Entry<String, Snapshot> entry : snapshots.entrySet()) {
+            String code = entry.getKey();
+            Snapshot snapshot = entry.getValue();
+            String installed = installedVersions.computeIfAbsent(authorityOf(code), CodeIndex::versionOf);
+            if (installed.equals(snapshot.version)) {
+                continue;
+            }
+            try {
+                CoordinateReferenceSystem current = CRS.forCode(code);
+                CoordinateReferenceSystem saved = null;
+                try {
+                    saved = parse(snapshot.wkt);
+                } catch (ParseException | ClassCastException ex) {
+                    Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.FINE, null, ex);
+                }
+                if (saved == null || !Utilities.deepEquals(saved, current, ComparisonMode.APPROXIMATIVE)) {
+                    CrsCache.getDefault().invalidate(code);
+                }
+                String wkt = format(current);
+                if (wkt != null) {
+                    snapshots.replace(code, snapshot, new Snapshot(installed, wkt));
+                    refreshed.incrementAndGet();
+                } else {
+                    snapshots.remove(code, snapshot);
+                    dropped.incrementAndGet();
+                }
+            } catch (FactoryException | RuntimeException ex) {
+                //the code no longer exists or can not be written as WKT
+                snapshots.remove(code, snapshot);
+                CrsCache.getDefault().invalidate(code);
+                dropped.incrementAndGet();
+            }
+            unsaved.incrementAndGet();
+        }
+        save();
+    }
+
+    private static String authorityOf(String code) {
+        int colon = code.indexOf(':');
+        return colon > 0 ? code.substring(0, colon).trim() : "";
+    }
+
+    /**
+     * Returns the WKT of a CRS, or null if some of it could not be written,
+     * in which case the parsed CRS would differ from the given one.
+     */
+    private static String format(CoordinateReferenceSystem crs) {
+        WKTFormat format = new WKTFormat(null, null);
+        format.setConvention(Convention.INTERNAL);
+        String wkt = format.format(crs);
+        if (format.getWarnings() != null) {
+            Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.FINE, "Not kept: {0}", format.getWarnings());
+            return null;
+        }
+        return wkt;
+    }
+
+    private static CoordinateReferenceSystem parse(String wkt) throws ParseException {
+        WKTFormat format = new WKTFormat(null, null);
+        format.setConvention(Convention.INTERNAL);
+        return (CoordinateReferenceSystem) format.parseObject(wkt);
+    }
+
+    /**
+     * @return number of snapshots
+     */
+    public int size() {
+        return snapshots.size();
+    }
+
+    private void load() {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file));
+                DataInputStream in = new DataInputStream(stream)) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.WARNING, "Ignoring CRS snapshots of unknown format");
+                return;
+            }
+            for (int n = in.readInt(); --n >= 0;) {
+                String code = in.readUTF();
+                String version = in.readUTF();
+                byte[] wkt = new byte[in.readInt()];
+                in.readFully(wkt);
+                snapshots.put(code, new Snapshot(version, new String(wkt, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.WARNING, "Ignoring unreadable CRS snapshots", ex);
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * Writes the snapshots to disk if they changed. Can be called from any
+     * thread.
+     */
+    public synchronized void save() {
+        if (file == null || unsaved.get() == 0) {
+            return;
+        }
+        unsaved.set(0);
+        try {
+            Path tmp = Files.createTempFile(file.getParent(), "crs-snapshots", ".tmp");
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(tmp));
+                    DataOutputStream out = new DataOutputStream(stream)) {
+                Map<String, Snapshot> copy = new HashMap<>(snapshots);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(copy.size());
+                for (Map.Entry<String, Snapshot> entry : copy.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue().version);
+                    //WKT of large CRS may exceed the 64 kB of writeUTF
+                    byte[] wkt = entry.getValue().wkt.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(wkt.length);
+                    out.write(wkt);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(CrsSnapshotStore.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CRS snapshots: " + snapshots.size() + " on disk, " + parsed.get() + " parsed, "
+                + refreshed.get() + " refreshed, " + dropped.get() + " dropped";
+    }
+
+    private static final class Snapshot {
+
+        final String version;
+        final String wkt;
+
+        Snapshot(String version, String wkt) {
+            this.version = version;
+            this.wkt = wkt;
+        }
+    }
+}
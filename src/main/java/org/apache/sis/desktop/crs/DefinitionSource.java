@@ -0,0 +1,156 @@
+package org.apache.sis.desktop.crs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Definitions loaded in the background and handed out in batches as they
+ * arrive, so that a combo box can be filled while the authority is still
+ * being queried. Subscribers receive everything loaded so far, then every
+ * new batch, on the loading thread. The source records when loading started,
+ * when the first definitions arrived and when it finished.
+ *
+ * @param <T> type of the definitions
+ * @author Siddhesh Rane
+ */
+public final class DefinitionSource<T> {
+
+    public enum State {
+        PENDING, LOADING, READY, FAILED
+    }
+
+    private final String name;
+    private final List<T> items = new ArrayList<>();
+    private final List<Consumer<List<T>>> subscribers = new ArrayList<>();
+    private final CompletableFuture<List<T>> ready = new CompletableFuture<>();
+    private volatile State state = State.PENDING;
+    private volatile long started, firstBatch, finished;
+
+    /**
+     * @param name name of the definitions, for statistics
+     */
+    public DefinitionSource(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return number of definitions loaded so far
+     */
+    public synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * Gives the definitions loaded so far to the subscriber, then every new
+     * batch until the source is ready. The subscriber is called on the
+     * loading thread and must not block.
+     *
+     * @param subscriber receives batches of definitions
+     */
+    public synchronized void subscribe(Consumer<List<T>> subscriber) {
+        if (!items.isEmpty()) {
+            subscriber.accept(new ArrayList<>(items));
+        }
+        if (state == State.PENDING || state == State.LOADING) {
+            subscribers.add(subscriber);
+        }
+    }
+
+    /**
+     * @return all definitions, once loaded
+     */
+    public CompletableFuture<List<T>> whenReady() {
+        return ready;
+    }
+
+    /**
+     * @return milliseconds from the start of loading to the first batch, or
+     *         -1 if none arrived yet
+     */
+    public long getTimeToFirstBatch() {
+        return firstBatch == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstBatch - started);
+    }
+
+    /**
+     * @return milliseconds spent loading so far, or in total once ready
+     */
+    public long getElapsedTime() {
+        if (started == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis((finished != 0 ? finished : System.nanoTime()) - started);
+    }
+
+    synchronized void start() {
+        if (state == State.PENDING) {
+            state = State.LOADING;
+            started = System.nanoTime();
+        }
+    }
+
+    synchronized void publish(List<T> batch) {
+        if (batch.isEmpty() || state == State.READY || state == State.FAILED) {
+            return;
+        }
+        start();
+        if (firstBatch == 0) {
+            firstBatch = System.nanoTime();
+        }
+        List<T> copy = Collections.unmodifiableList(new ArrayList<>(batch));
+        items.addAll(copy);
+        for (Consumer<List<T>> subscriber : subscribers) {
+            subscriber.accept(copy);
+        }
+    }
+
+    void complete() {
+        List<T> all;
+        synchronized (this) {
+            if (state == State.READY || state == State.FAILED) {
+                return;
+            }
+            start();
+            state = State.READY;
+            finished = System.nanoTime();
+            subscribers.clear();
+            all = Collections.unmodifiableList(new ArrayList<>(items));
+        }
+        Logger.getLogger(DefinitionSource.class.getName()).log(Level.FINE, "{0}", this);
+        ready.complete(all);
+    }
+
+    void fail(Throwable cause) {
+        synchronized (this) {
+            if (state == State.READY || state == State.FAILED) {
+                return;
+            }
+            start();
+            state = State.FAILED;
+            finished = System.nanoTime();
+            subscribers.clear();
+        }
+        ready.completeExceptionally(cause);
+    }
+
+    @Override
+    public String toString() {
+        long first = getTimeToFirstBatch();
+        return name + ": " + state + ", " + size() + " loaded"
+                + (first >= 0 ? ", first after " + first + " ms" : "")
+                + (state != State.PENDING ? ", " + getElapsedTime() + " ms elapsed" : "");
+    }
+}
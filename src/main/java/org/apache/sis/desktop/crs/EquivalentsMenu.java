@@ -0,0 +1,64 @@
+package org.apache.sis.desktop.crs;
+
+import java.util.List;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.geometry.Side;
+import javafx.scene.control.Button;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Menu listing the authority codes equivalent to a CRS, found by the
+ * {@link FingerprintIndex}, below the button which asked for them.
+ *
+ * @author Siddhesh Rane
+ */
+public final class EquivalentsMenu {
+
+    private EquivalentsMenu() {
+    }
+
+    /**
+     * Searches the codes equivalent to the CRS and shows them below the
+     * button, which is disabled meanwhile. Must be called from the JavaFX
+     * thread.
+     *
+     * @param button   the button which asked for the search
+     * @param crs      the CRS to look for
+     * @param onChoose receives the code chosen by the user
+     */
+    public static void show(Button button, CoordinateReferenceSystem crs, Consumer<String> onChoose) {
+        final String text = button.getText();
+        button.setDisable(true);
+        button.setText("Searching...");
+        FingerprintIndex.getInstance().findEquivalents(crs).whenComplete((codes, ex) -> Platform.runLater(() -> {
+            button.setDisable(false);
+            button.setText(text);
+            ContextMenu menu = new ContextMenu();
+            if (ex != null) {
+                menu.getItems().add(disabled("Search failed: " + ex.getLocalizedMessage()));
+            } else if (codes.isEmpty()) {
+                menu.getItems().add(disabled("No equivalent found"));
+            } else {
+                addAll(menu, codes, onChoose);
+            }
+            menu.show(button, Side.BOTTOM, 0, 0);
+        }));
+    }
+
+    private static void addAll(ContextMenu menu, List<String> codes, Consumer<String> onChoose) {
+        for (String code : codes) {
+            MenuItem item = new MenuItem(CRSEditor.CRS_CODE_TO_DESCRIPTION_CONVERTER.toString(code));
+            item.setOnAction(ae -> onChoose.accept(code));
+            menu.getItems().add(item);
+        }
+    }
+
+    private static MenuItem disabled(String text) {
+        MenuItem item = new MenuItem(text);
+        item.setDisable(true);
+        return item;
+    }
+}
@@ -0,0 +1,382 @@
+package org.apache.sis.desktop.crs;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.measure.Unit;
+import javax.measure.quantity.Angle;
+import javax.measure.quantity.Length;
+import org.apache.sis.desktop.TaskScheduler;
+import org.apache.sis.measure.Units;
+import org.apache.sis.referencing.IdentifiedObjects;
+import org.apache.sis.referencing.datum.BursaWolfParameters;
+import org.apache.sis.referencing.datum.DefaultGeodeticDatum;
+import org.opengis.parameter.GeneralParameterValue;
+import org.opengis.parameter.ParameterValue;
+import org.opengis.referencing.crs.CompoundCRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.EngineeringCRS;
+import org.opengis.referencing.crs.GeneralDerivedCRS;
+import org.opengis.referencing.crs.GeocentricCRS;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.crs.SingleCRS;
+import org.opengis.referencing.crs.TemporalCRS;
+import org.opengis.referencing.crs.VerticalCRS;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.datum.Datum;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.GeodeticDatum;
+import org.opengis.referencing.datum.PrimeMeridian;
+import org.opengis.referencing.operation.Conversion;
+import org.opengis.util.FactoryException;
+
+/**
+ * Finds the authority codes of CRS equivalent to a given one. Every code of
+ * the {@link CodeIndex} is reduced to a fingerprint of what defines its
+ * coordinates: datum, ellipsoid, prime meridian, projection method and
+ * parameters, axis directions and units. The datum is given by its EPSG code,
+ * looked up when a CRS read from a file has none, so that datums sharing an
+ * ellipsoid like NAD83 and ETRS89 are told apart. Other names and identifiers
+ * are left out, so a CRS read from a file matches the EPSG codes defining the
+ * same coordinates. Fingerprints are computed by the code index while it
+ * examines each CRS and saved with it, so they are computed again only when
+ * an authority version changes. Lookups are then a binary search.
+ *
+ * @author Siddhesh Rane
+ */
+public final class FingerprintIndex {
+
+    /**
+     * Significant digits kept from numbers, enough to absorb rounding in
+     * files while telling actual definitions apart.
+     */
+    private static final MathContext PRECISION = new MathContext(10);
+
+    private static final FingerprintIndex INSTANCE = new FingerprintIndex();
+
+    /**
+     * Returns the index shared by the application. Nothing is built before
+     * the first search.
+     *
+     * @return the shared index
+     */
+    public static FingerprintIndex getInstance() {
+        return INSTANCE;
+    }
+
+    private CompletableFuture<Table> table;
+
+    private FingerprintIndex() {
+        //entries examined again after an authority update are indexed again on next search
+        CodeIndex.getInstance().addListener(entries -> {
+            synchronized (this) {
+                table = null;
+            }
+        });
+    }
+
+    /**
+     * Returns the codes of the CRS equivalent to the given one. Codes with
+     * the same axis order come first, followed by codes differing only by
+     * the order of their axes. On first call this waits for the code index to
+     * have examined every CRS, which is done on the background lane.
+     *
+     * @param crs the CRS to look for
+     * @return codes like {@code "EPSG:4326"}, completed on a worker thread
+     */
+    public CompletableFuture<List<String>> findEquivalents(CoordinateReferenceSystem crs) {
+        //identifying the datum may query the database, so this is not done by the caller
+        return getTable().thenApplyAsync(t -> {
+            List<String> codes = new ArrayList<>();
+            t.exact.find(hash(fingerprint(crs, true)), t.codes, codes);
+            List<String> reordered = new ArrayList<>();
+            t.lenient.find(hash(fingerprint(crs, false)), t.codes, reordered);
+            reordered.removeAll(codes);
+            codes.addAll(reordered);
+            return codes;
+        }, TaskScheduler.getDefault().executor(TaskScheduler.Lane.FOREGROUND));
+    }
+
+    private synchronized CompletableFuture<Table> getTable() {
+        if (table == null) {
+            table = CodeIndex.getInstance().getExaminedEntries().thenApplyAsync(FingerprintIndex::build,
+                    TaskScheduler.getDefault().executor(TaskScheduler.Lane.BACKGROUND));
+        }
+        return table;
+    }
+
+    /**
+     * Collects the fingerprints of the examined entries. Codes which could
+     * not be created have none and are left out.
+     */
+    private static Table build(List<CodeIndex.Entry> entries) {
+        final List<String> codes = new ArrayList<>(entries.size());
+        final long[] exact = new long[entries.size()];
+        final long[] lenient = new long[entries.size()];
+        for (CodeIndex.Entry entry : entries) {
+            if (entry.getFingerprint() != 0) {
+                exact[codes.size()] = entry.getFingerprint();
+                lenient[codes.size()] = entry.getLenientFingerprint();
+                codes.add(entry.getIdentifier());
+            }
+        }
+        int n = codes.size();
+        return new Table(codes.toArray(new String[n]), Arrays.copyOf(exact, n), Arrays.copyOf(lenient, n));
+    }
+
+    /**
+     * Returns the text from which the fingerprint of a CRS is hashed.
+     *
+     * @param crs       the CRS
+     * @param axisOrder whether the order of axes matters, or only their set
+     * @return normalized definition of the CRS
+     */
+    public static String fingerprint(CoordinateReferenceSystem crs, boolean axisOrder) {
+        StringBuilder b = new StringBuilder(128);
+        append(b, crs, axisOrder);
+        return b.toString();
+    }
+
+    private static void append(StringBuilder b, CoordinateReferenceSystem crs, boolean axisOrder) {
+        if (crs instanceof CompoundCRS) {
+            b.append("compound[");
+            for (CoordinateReferenceSystem component : ((CompoundCRS) crs).getComponents()) {
+                append(b, component, axisOrder);
+                b.append(';');
+            }
+            b.append(']');
+            return;
+        }
+        b.append(kindOf(crs)).append('[');
+        if (crs instanceof SingleCRS) {
+            append(b, ((SingleCRS) crs).getDatum());
+        }
+        if (crs instanceof GeneralDerivedCRS) {
+            //the axis order of the base CRS has no effect on the derived coordinates
+            GeneralDerivedCRS derived = (GeneralDerivedCRS) crs;
+            b.append("base=");
+            append(b, derived.getBaseCRS(), false);
+            append(b, derived.getConversionFromBase());
+        }
+        append(b, crs.getCoordinateSystem(), axisOrder);
+        b.append(']');
+    }
+
+    private static String kindOf(CoordinateReferenceSystem crs) {
+        if (crs instanceof ProjectedCRS) {
+            return "projected";
+        } else if (crs instanceof GeographicCRS) {
+            return "geographic";
+        } else if (crs instanceof GeocentricCRS) {
+            return "geocentric";
+        } else if (crs instanceof VerticalCRS) {
+            return "vertical";
+        } else if (crs instanceof TemporalCRS) {
+            return "temporal";
+        } else if (crs instanceof EngineeringCRS) {
+            return "engineering";
+        }
+        return "crs";
+    }
+
+    /**
+     * Appends the identity of the datum, then for geodetic datums the
+     * ellipsoid and the prime meridian.
+     */
+    private static void append(StringBuilder b, Datum datum) {
+        if (datum != null) {
+            b.append("datum=").append(identity(datum));
+        }
+        if (datum instanceof GeodeticDatum) {
+            GeodeticDatum geodetic = (GeodeticDatum) datum;
+            Ellipsoid ellipsoid = geodetic.getEllipsoid();
+            b.append(",a=").append(number(ellipsoid.getAxisUnit().getConverterTo(Units.METRE).convert(ellipsoid.getSemiMajorAxis())));
+            b.append(",invf=").append(ellipsoid.isSphere() ? "0" : number(ellipsoid.getInverseFlattening()));
+            PrimeMeridian pm = geodetic.getPrimeMeridian();
+            b.append(",pm=").append(number(pm.getAngularUnit().getConverterTo(Units.DEGREE).convert(pm.getGreenwichLongitude())));
+        }
+        b.append(';');
+    }
+
+    /**
+     * Returns the EPSG code of the datum, searched in the database if the
+     * datum has none. Datums which are not found are identified by their
+     * normalized name and, when known, the parameters of their TOWGS84
+     * transformation, since such datums are often named "unknown".
+     */
+    private static String identity(Datum datum) {
+        try {
+            Integer code = IdentifiedObjects.lookupEPSG(datum);
+            if (code != null) {
+                return "EPSG:" + code;
+            }
+        } catch (FactoryException ex) {
+            Logger.getLogger(FingerprintIndex.class.getName()).log(Level.FINE, null, ex);
+        }
+        StringBuilder b = new StringBuilder(normalize(datum.getName().getCode()));
+        if (datum instanceof DefaultGeodeticDatum) {
+            for (BursaWolfParameters p : ((DefaultGeodeticDatum) datum).getBursaWolfParameters()) {
+                b.append(",towgs84=");
+                for (double value : p.getValues()) {
+                    b.append(number(value)).append(' ');
+                }
+            }
+        }
+        return b.toString();
+    }
+
+    /**
+     * Appends the method and the parameter values in standard units, sorted
+     * by name. Zero values are left out since files often omit them, and the
+     * ellipsoid axes are already given by the datum.
+     */
+    private static void append(StringBuilder b, Conversion conversion) {
+        b.append("method=").append(normalize(conversion.getMethod().getName().getCode()));
+        Map<String, String> parameters = new TreeMap<>();
+        for (GeneralParameterValue p : conversion.getParameterValues().values()) {
+            if (!(p instanceof ParameterValue)) {
+                continue;
+            }
+            ParameterValue<?> value = (ParameterValue<?>) p;
+            String name = normalize(value.getDescriptor().getName().getCode());
+            if (name.equals("semimajor") || name.equals("semiminor") || !(value.getValue() instanceof Number)) {
+                continue;
+            }
+            double v = standard(((Number) value.getValue()).doubleValue(), value.getUnit());
+            if (v != 0) {
+                parameters.put(name, number(v));
+            }
+        }
+        b.append(parameters).append(';');
+    }
+
+    private static void append(StringBuilder b, CoordinateSystem cs, boolean axisOrder) {
+        List<String> axes = new ArrayList<>(cs.getDimension());
+        for (int i = 0; i < cs.getDimension(); i++) {
+            CoordinateSystemAxis axis = cs.getAxis(i);
+            Unit<?> unit = axis.getUnit();
+            String scale = unit == null ? "" : unit.getSystemUnit() + "*" + number(Units.toStandardUnit(unit));
+            axes.add(axis.getDirection().name() + ' ' + scale);
+        }
+        if (!axisOrder) {
+            Collections.sort(axes);
+        }
+        b.append("axes=").append(axes);
+    }
+
+    private static double standard(double value, Unit<?> unit) {
+        if (unit != null) {
+            if (Units.isAngular(unit)) {
+                return unit.asType(Angle.class).getConverterTo(Units.DEGREE).convert(value);
+            }
+            if (Units.isLinear(unit)) {
+                return unit.asType(Length.class).getConverterTo(Units.METRE).convert(value);
+            }
+        }
+        return value;
+    }
+
+    private static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        if (Math.abs(value) < 1E-10) {
+            return "0";
+        }
+        return new BigDecimal(value).round(PRECISION).stripTrailingZeros().toPlainString();
+    }
+
+    private static String normalize(String name) {
+        StringBuilder b = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                b.append(Character.toLowerCase(c));
+            }
+        }
+        return b.toString();
+    }
+
+    /**
+     * 64 bits FNV-1a hash, wide enough for collisions between a few thousand
+     * codes to be negligible.
+     */
+    static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Fingerprints of all codes, with both hashes sorted for binary search.
+     */
+    private static final class Table {
+
+        final String[] codes;
+        final long[] exactHashes, lenientHashes;
+        final SortedHashes exact, lenient;
+
+        Table(String[] codes, long[] exactHashes, long[] lenientHashes) {
+            this.codes = codes;
+            this.exactHashes = exactHashes;
+            this.lenientHashes = lenientHashes;
+            this.exact = new SortedHashes(exactHashes);
+            this.lenient = new SortedHashes(lenientHashes);
+        }
+    }
+
+    /**
+     * Hashes sorted together with the index of their code.
+     */
+    private static final class SortedHashes {
+
+        private final long[] keys;
+        private final int[] rows;
+
+        SortedHashes(long[] hashes) {
+            Integer[] order = new Integer[hashes.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i, j) -> Long.compare(hashes[i], hashes[j]));
+            keys = new long[hashes.length];
+            rows = new int[hashes.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = hashes[order[i]];
+                rows[i] = order[i];
+            }
+        }
+
+        void find(long hash, String[] codes, List<String> found) {
+            int i = Arrays.binarySearch(keys, hash);
+            if (i < 0) {
+                return;
+            }
+            while (i > 0 && keys[i - 1] == hash) {
+                i--;
+            }
+            for (; i < keys.length && keys[i] == hash; i++) {
+                found.add(codes[rows[i]]);
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        Table t = table != null && table.isDone() && !table.isCompletedExceptionally() ? table.join() : null;
+        return "CRS fingerprints: " + (t == null ? "not loaded" : t.codes.length + " codes");
+    }
+}
@@ -0,0 +1,188 @@
+package org.apache.sis.desktop.dnd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.stage.FileChooser;
+import org.apache.sis.desktop.TaskScheduler;
+
+/**
+ * Lists the files below dropped directories. Every directory is read by its
+ * own task on the background lane of the {@link TaskScheduler}, so sibling
+ * directories are read in parallel. Files accepted by the filter are handed
+ * to the JavaFX thread in batches, at most one batch per pulse, rather than
+ * one by one. Symbolic links to directories are not followed.
+ *
+ * @author Siddhesh Rane
+ */
+public final class DirectoryScanner {
+
+    private final Predicate<Path> filter;
+    private final Consumer<List<File>> sink;
+    private final ConcurrentLinkedQueue<File> found = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingDirectories = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * Cancellation flag of the current scan, shared by its tasks. Replaced by
+     * a new flag when a scan starts after a cancellation. Only accessed on the
+     * JavaFX thread, tasks keep the flag they were given.
+     */
+    private AtomicBoolean cancelled = new AtomicBoolean();
+
+    private final ReadOnlyBooleanWrapper running = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyIntegerWrapper count = new ReadOnlyIntegerWrapper(0);
+
+    /**
+     * @param filter accepts the files to list
+     * @param sink   receives batches of files on the JavaFX thread
+     */
+    public DirectoryScanner(Predicate<Path> filter, Consumer<List<File>> sink) {
+        this.filter = filter;
+        this.sink = sink;
+    }
+
+    /**
+     * Returns a filter accepting the files matched by any of the given
+     * extension filters. Patterns are of the {@code *.ext} form, matched
+     * ignoring case, or {@code *} for all files.
+     *
+     * @param filters the filters shown by file choosers
+     * @return a filter on file names
+     */
+    public static Predicate<Path> filterOf(Collection<FileChooser.ExtensionFilter> filters) {
+        final List<String> suffixes = new ArrayList<>();
+        for (FileChooser.ExtensionFilter f : filters) {
+            for (String pattern : f.getExtensions()) {
+                if (pattern.equals("*") || pattern.equals("*.*")) {
+                    return path -> true;
+                }
+                suffixes.add(pattern.replace("*", "").toLowerCase(Locale.ROOT));
+            }
+        }
+        return path -> {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            for (String suffix : suffixes) {
+                if (name.endsWith(suffix)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * @return true while directories remain to be read
+     */
+    public ReadOnlyBooleanProperty runningProperty() {
+        return running.getReadOnlyProperty();
+    }
+
+    /**
+     * @return number of files given to the sink so far
+     */
+    public ReadOnlyIntegerProperty countProperty() {
+        return count.getReadOnlyProperty();
+    }
+
+    /**
+     * Starts listing the given directories. Must be called from the JavaFX
+     * thread. Can be called again while a scan is running, the directories
+     * are then added to that scan, or after a scan has been cancelled.
+     *
+     * @param directories the directories to list recursively
+     */
+    public void scan(Collection<File> directories) {
+        if (directories.isEmpty()) {
+            return;
+        }
+        if (cancelled.get()) {
+            cancelled = new AtomicBoolean();
+        }
+        running.set(true);
+        for (File directory : directories) {
+            submit(directory.toPath(), cancelled);
+        }
+    }
+
+    /**
+     * Stops reading the directories of the current scan. Files already found
+     * are still given to the sink. Must be called from the JavaFX thread.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    private void submit(Path directory, AtomicBoolean cancelled) {
+        pendingDirectories.incrementAndGet();
+        TaskScheduler.getDefault().submit(() -> list(directory, cancelled), TaskScheduler.Lane.BACKGROUND);
+    }
+
+    private void list(Path directory, AtomicBoolean cancelled) {
+        try {
+            if (!cancelled.get()) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (Path entry : entries) {
+                        if (cancelled.get()) {
+                            break;
+                        }
+                        BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attributes.isDirectory()) {
+                            submit(entry, cancelled);
+                        } else if (filter.test(entry)) {
+                            found.add(entry.toFile());
+                            scheduleFlush();
+                        }
+                    }
+                } catch (IOException ex) {
+                    Logger.getLogger(DirectoryScanner.class.getName()).log(Level.WARNING, "Cannot list " + directory, ex);
+                }
+            }
+        } finally {
+            if (pendingDirectories.decrementAndGet() == 0) {
+                scheduleFlush();
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<File> batch = new ArrayList<>();
+        for (File file; (file = found.poll()) != null;) {
+            batch.add(file);
+        }
+        if (!batch.isEmpty()) {
+            count.set(count.get() + batch.size());
+            sink.accept(batch);
+        }
+        if (pendingDirectories.get() == 0 && found.isEmpty()) {
+            running.set(false);
+        }
+    }
+}
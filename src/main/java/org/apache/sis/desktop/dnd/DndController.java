@@ -2,28 +2,35 @@ package org.apache.sis.desktop.dnd;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.Predicate;
+import javafx.beans.Observable;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.MapChangeListener;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.collections.ObservableMap;
-import javafx.collections.ObservableSet;
-import javafx.collections.SetChangeListener;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
 import javafx.scene.control.Button;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
 import javafx.scene.input.DragEvent;
 import javafx.scene.input.Dragboard;
 import javafx.scene.input.TransferMode;
-import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.util.Callback;
+import org.controlsfx.control.GridView;
 
 /**
  * FXML Controller class
@@ -35,69 +42,131 @@ public class DndController implements Initializable {
     @FXML
     private StackPane dragPane;
     @FXML
-    private Pane itemListing;
+    private GridView<FileEntry> fileGrid;
     @FXML
     private Text message;
     @FXML
     Button addNew;
+    @FXML
+    private Label scanStatus;
+    @FXML
+    private Button stopScan;
+
+    private final ObservableList<File> draggedFiles = FXCollections.observableArrayList();
+    private final ObservableList<File> unmodifiableDraggedFiles = FXCollections.unmodifiableObservableList(draggedFiles);
+    private final Set<File> knownFiles = new HashSet<>();
+    private final ObservableList<FileEntry> entries = FXCollections.observableArrayList();
+    private final DirectoryScanner scanner;
 
-    private final ObservableSet<File> draggedFiles = FXCollections.observableSet();
-    private final ObservableMap<File, Node> fileNodeMap = FXCollections.observableHashMap();
+    /**
+     * Files listed when a directory is dropped, read by the scanner threads.
+     */
+    private volatile Predicate<Path> fileFilter = path -> true;
 
     final ObservableList<FileChooser.ExtensionFilter> extensionFilters = FXCollections.observableArrayList();
     public ObservableList<FileChooser.ExtensionFilter> getExtensionFilters() {
         return extensionFilters;
     }
 
-    private final ObjectProperty<Callback<File, Node>> fileNodeFactory = new SimpleObjectProperty<>();
-    public ObjectProperty fileNodeFactoryProperty() {
-        return fileNodeFactory;
+    private final ObjectProperty<Callback<File, ContextMenu>> fileMenuFactory = new SimpleObjectProperty<>();
+    public ObjectProperty<Callback<File, ContextMenu>> fileMenuFactoryProperty() {
+        return fileMenuFactory;
     }
-    public Callback<File, Node> getFileNodeFactory() {
-        return fileNodeFactory.get();
+    public Callback<File, ContextMenu> getFileMenuFactory() {
+        return fileMenuFactory.get();
     }
-    public void setFileNodeFactory(Callback<File, Node> value) {
-        fileNodeFactory.set(value);
+    /**
+     * Sets the factory of the context menu shown for a file. Menus are built
+     * when requested, not kept per file.
+     *
+     * @param value the factory
+     */
+    public void setFileMenuFactory(Callback<File, ContextMenu> value) {
+        fileMenuFactory.set(value);
     }
 
     public DndController() {
-
-        draggedFiles.addListener(new SetChangeListener<File>() {
-            @Override
-            public void onChanged(SetChangeListener.Change<? extends File> change) {
-                if (change.wasAdded()) {
-                    File added = change.getElementAdded();
-                    fileNodeMap.put(added, fileNodeFactory.get().call(added));
-                }
+        extensionFilters.addListener((Observable ob) -> fileFilter = DirectoryScanner.filterOf(extensionFilters));
+        scanner = new DirectoryScanner(path -> fileFilter.test(path), this::addFiles);
+        //one change per batch of files; the grid only builds cells for visible entries
+        draggedFiles.addListener((ListChangeListener.Change<? extends File> change) -> {
+            while (change.next()) {
                 if (change.wasRemoved()) {
-                    File removed = change.getElementRemoved();
-                    fileNodeMap.remove(removed);
+                    //removeIf fires one change per element, removeAll given a set fires one in all
+                    Set<File> removed = new HashSet<>(change.getRemoved());
+                    Set<FileEntry> obsolete = new HashSet<>();
+                    for (FileEntry entry : entries) {
+                        if (removed.contains(entry.getFile())) {
+                            obsolete.add(entry);
+                        }
+                    }
+                    entries.removeAll(obsolete);
                 }
-            }
-        });
-        fileNodeMap.addListener(new MapChangeListener<File, Node>() {
-            @Override
-            public void onChanged(MapChangeListener.Change<? extends File, ? extends Node> change) {
                 if (change.wasAdded()) {
-                    final Node valueAdded = change.getValueAdded();
-                    itemListing.getChildren().add(valueAdded);
-                }
-                if (change.wasRemoved()) {
-                    Node removedNode = change.getValueRemoved();
-                    itemListing.getChildren().remove(removedNode);
+                    List<FileEntry> added = new ArrayList<>(change.getAddedSize());
+                    for (File file : change.getAddedSubList()) {
+                        added.add(new FileEntry(file));
+                    }
+                    entries.addAll(added);
                 }
             }
         });
     }
 
     /**
-     * Get an @code ObservableSet of files that have been dragged to this dnd
-     * pane. The returned set is mutable and live.
+     * Get an {@code ObservableList} of files that have been dragged to this
+     * dnd pane, in the order they were added. The list is live and read only,
+     * files are added with {@link #addFiles(Collection)}.
      *
-     * @return mutable observable set of files
+     * @return observable list of files
      */
-    public ObservableSet<File> getDraggedFiles() {
-        return draggedFiles;
+    public ObservableList<File> getDraggedFiles() {
+        return unmodifiableDraggedFiles;
+    }
+
+    /**
+     * Adds the files not already in this pane, with a single change event.
+     *
+     * @param files the files to add
+     */
+    public void addFiles(Collection<File> files) {
+        List<File> added = new ArrayList<>(files.size());
+        for (File file : files) {
+            if (knownFiles.add(file)) {
+                added.add(file);
+            }
+        }
+        if (!added.isEmpty()) {
+            draggedFiles.addAll(added);
+        }
+    }
+
+    /**
+     * Removes files from this pane, with a single change event.
+     *
+     * @param files the files to remove
+     */
+    public void removeFiles(Collection<File> files) {
+        Set<File> removed = new HashSet<>(files);
+        if (knownFiles.removeAll(removed)) {
+            draggedFiles.removeAll(removed);
+        }
+    }
+
+    /**
+     * Adds the given files, and the files below the given directories which
+     * match the extension filters. Directories are listed in the background.
+     *
+     * @param dropped files and directories
+     */
+    public void addFilesAndDirectories(Collection<File> dropped) {
+        List<File> files = new ArrayList<>();
+        List<File> directories = new ArrayList<>();
+        for (File file : dropped) {
+            (file.isDirectory() ? directories : files).add(file);
+        }
+        addFiles(files);
+        scanner.scan(directories);
     }
 
     @FXML
@@ -125,8 +194,7 @@ public class DndController implements Initializable {
     void onDragDropped(DragEvent de) {
         Dragboard dragboard = de.getDragboard();
         if (dragboard.hasFiles()) {
-            List<File> files = dragboard.getFiles();
-            getDraggedFiles().addAll(files);
+            addFilesAndDirectories(dragboard.getFiles());
             de.setDropCompleted(true);
             de.consume();
         }
@@ -137,12 +205,19 @@ public class DndController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle rb) {
+        fileGrid.setItems(entries);
+        fileGrid.setCellFactory(grid -> new FileCell(fileMenuFactory));
+        scanStatus.visibleProperty().bind(scanner.runningProperty());
+        scanStatus.textProperty().bind(Bindings.format("Scanning directories, %d files found", scanner.countProperty()));
+        stopScan.visibleProperty().bind(scanner.runningProperty());
+        stopScan.managedProperty().bind(scanner.runningProperty());
+        stopScan.setOnAction(ae -> scanner.cancel());
         addNew.setOnAction(me -> {
             FileChooser fileChooser = new FileChooser();
             fileChooser.getExtensionFilters().setAll(getExtensionFilters());
             File file = fileChooser.showOpenDialog(dragPane.getScene().getWindow());
             if (file != null) {
-                getDraggedFiles().add(file);
+                addFiles(Collections.singletonList(file));
             }
         });
     }
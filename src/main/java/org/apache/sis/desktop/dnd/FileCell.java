@@ -0,0 +1,90 @@
+package org.apache.sis.desktop.dnd;
+
+import de.jensd.fx.fontawesome.AwesomeDude;
+import de.jensd.fx.fontawesome.AwesomeIcon;
+import java.io.File;
+import java.util.Locale;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.property.ObjectProperty;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import javafx.util.Callback;
+import org.apache.sis.desktop.ContentTypeCache;
+import org.controlsfx.control.GridCell;
+
+/**
+ * Cell of the file grid. The nodes are built once per cell and reused for
+ * every entry the cell shows while scrolling.
+ *
+ * @author Siddhesh Rane
+ */
+final class FileCell extends GridCell<FileEntry> {
+
+    private final VBox box;
+    private final Text filename;
+    private final Text type;
+    private final InvalidationListener refresh = ob -> updateType();
+
+    /**
+     * Listener added to the entries shown. Weak, since cells trimmed by the
+     * grid are not always given an empty item first.
+     */
+    private final InvalidationListener weakRefresh = new WeakInvalidationListener(refresh);
+
+    /**
+     * @param menuFactory builds the context menu of a file when requested
+     */
+    FileCell(ObjectProperty<Callback<File, ContextMenu>> menuFactory) {
+        Label icon = AwesomeDude.createIconLabel(AwesomeIcon.FILE, "45");
+        icon.getStyleClass().add("icon");
+        filename = new Text();
+        filename.getStyleClass().add("filename");
+        filename.setWrappingWidth(120);
+        type = new Text();
+        type.getStyleClass().add("mime");
+        box = new VBox(icon, filename, type);
+        box.getStyleClass().add("file-vbox");
+        setOnContextMenuRequested(cme -> {
+            FileEntry entry = getItem();
+            Callback<File, ContextMenu> factory = menuFactory.get();
+            if (entry != null && factory != null) {
+                factory.call(entry.getFile()).show(this, cme.getScreenX(), cme.getScreenY());
+            }
+        });
+    }
+
+    @Override
+    protected void updateItem(FileEntry item, boolean empty) {
+        FileEntry old = getItem();
+        if (old != null) {
+            old.contentTypeProperty().removeListener(weakRefresh);
+        }
+        super.updateItem(item, empty);
+        if (empty || item == null) {
+            setGraphic(null);
+            return;
+        }
+        filename.setText(item.getName());
+        item.contentTypeProperty().addListener(weakRefresh);
+        updateType();
+        item.check();
+        setGraphic(box);
+    }
+
+    private void updateType() {
+        FileEntry item = getItem();
+        ContentTypeCache.ContentType t = item == null ? null : item.getContentType();
+        type.setText(t == null ? "probing..." : t.getSize() < 0 ? t.toString() : t + "\n" + formatSize(t.getSize()));
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.ROOT, "%.1f %sB", bytes / (double) (1L << (unit * 10)), "KMGTPE".charAt(unit - 1));
+    }
+}
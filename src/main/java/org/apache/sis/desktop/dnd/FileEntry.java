@@ -0,0 +1,69 @@
+package org.apache.sis.desktop.dnd;
+
+import java.io.File;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import org.apache.sis.desktop.ContentTypeCache;
+
+/**
+ * A file of the drag and drop pane: the file, its name and its content type
+ * once known. Entries hold no node; the few cells on screen show whichever
+ * entries are visible. The content type is probed the first time the entry
+ * is shown, so files scrolled past are never probed.
+ * <p>
+ * Must be used from the JavaFX thread only.
+ *
+ * @author Siddhesh Rane
+ */
+public final class FileEntry {
+
+    private final File file;
+    private final String name;
+    private final ReadOnlyObjectWrapper<ContentTypeCache.ContentType> type;
+    private boolean checked;
+
+    public FileEntry(File file) {
+        this.file = file;
+        this.name = file.getName();
+        this.type = new ReadOnlyObjectWrapper<>(this, "contentType", ContentTypeCache.getDefault().peek(file));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the content type, possibly from a previous run, or null if
+     *         never probed
+     */
+    public ContentTypeCache.ContentType getContentType() {
+        return type.get();
+    }
+
+    /**
+     * The content type, updated once probed. Every cell showing this entry
+     * listens to it while it does.
+     *
+     * @return the content type property
+     */
+    public ReadOnlyObjectProperty<ContentTypeCache.ContentType> contentTypeProperty() {
+        return type.getReadOnlyProperty();
+    }
+
+    /**
+     * Probes the content type in the background, unless already done since
+     * the entry was created.
+     */
+    public void check() {
+        if (checked) {
+            return;
+        }
+        checked = true;
+        ContentTypeCache.getDefault().probe(file).thenAcceptAsync(type::set, Platform::runLater);
+    }
+}
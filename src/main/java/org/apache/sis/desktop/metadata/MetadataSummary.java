@@ -0,0 +1,233 @@
+package org.apache.sis.desktop.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.apache.sis.metadata.MetadataStandard;
+import org.apache.sis.metadata.ValueExistencePolicy;
+import org.apache.sis.util.collection.TableColumn;
+import org.apache.sis.util.collection.TreeTable;
+import org.opengis.metadata.Identifier;
+import org.opengis.metadata.Metadata;
+import org.opengis.metadata.spatial.Dimension;
+import org.opengis.referencing.ReferenceSystem;
+import org.opengis.util.ControlledVocabulary;
+
+/**
+ * The most often needed information of a metadata: title, abstract,
+ * geographic bounds, spatial representation type, reference system and axis
+ * dimensions. Extracted from the tree view of the metadata without any
+ * JavaFX dependency, so it is used both by {@link SummaryView} and by the
+ * headless batch extraction.
+ *
+ * @author Siddhesh Rane
+ */
+public final class MetadataSummary {
+
+    public static final String IDENTIFICATION_INFO = "identificationInfo";
+    public static final String CITATION = "citation";
+    public static final String EXTENT = "extent";
+    public static final String GEOGRAPHIC_ELEMENT = "geographicElement";
+
+    private String title = "";
+    private String abstractText = "";
+    private String north, south, east, west;
+    private String spatialRepresentationType;
+    private String referenceSystem;
+    private final List<String> dimensionNames = new ArrayList<>();
+    private final List<String> dimensionSizes = new ArrayList<>();
+
+    private MetadataSummary() {
+    }
+
+    /**
+     * Returns the tree view of the metadata from which summaries are
+     * extracted.
+     *
+     * @param metadata the metadata to summarize
+     * @return tree view of the metadata
+     */
+    public static TreeTable createTreeTable(Metadata metadata) {
+        return MetadataStandard.ISO_19115.asTreeTable(metadata, Metadata.class, ValueExistencePolicy.NON_NIL);
+    }
+
+    /**
+     * Extracts the summary of a metadata.
+     *
+     * @param metadata tree view of the metadata, as created by
+     *                 {@link #createTreeTable(Metadata)}
+     * @return the summary
+     */
+    public static MetadataSummary of(TreeTable metadata) {
+        final MetadataSummary s = new MetadataSummary();
+        //Title in identificationInfo/citation/title
+        TreeTable.Node titleNode = getNodeByIdentifierPath(metadata, IDENTIFICATION_INFO, CITATION, "title");
+        if (titleNode != null) {
+            s.title = Objects.toString(titleNode.getValue(TableColumn.VALUE), "");
+        }
+
+        //Abstract in identificationInfo/abstract
+        TreeTable.Node abstrct = getNodeByIdentifierPath(metadata, IDENTIFICATION_INFO, "abstract");
+        if (abstrct != null) {
+            s.abstractText = Objects.toString(abstrct.getValue(TableColumn.VALUE), "");
+        }
+
+        //GeographicExtent in identificationInfo/extent/geographicElement
+        TreeTable.Node north = getNodeByIdentifierPath(metadata, IDENTIFICATION_INFO, EXTENT, GEOGRAPHIC_ELEMENT, "northBoundLatitude");
+        TreeTable.Node south = getNodeByIdentifierPath(metadata, IDENTIFICATION_INFO, EXTENT, GEOGRAPHIC_ELEMENT, "southBoundLatitude");
+        TreeTable.Node east = getNodeByIdentifierPath(metadata, IDENTIFICATION_INFO, EXTENT, GEOGRAPHIC_ELEMENT, "eastBoundLongitude");
+        TreeTable.Node west = getNodeByIdentifierPath(metadata, IDENTIFICATION_INFO, EXTENT, GEOGRAPHIC_ELEMENT, "westBoundLongitude");
+        if (north != null && south != null && east != null && west != null) {
+            s.north = Objects.toString(north.getValue(TableColumn.VALUE), null);
+            s.south = Objects.toString(south.getValue(TableColumn.VALUE), null);
+            s.east = Objects.toString(east.getValue(TableColumn.VALUE), null);
+            s.west = Objects.toString(west.getValue(TableColumn.VALUE), null);
+        }
+
+        //SpatialRepresentationType
+        TreeTable.Node type = getNodeByIdentifierPath(metadata, IDENTIFICATION_INFO, "spatialRepresentationType");
+        if (type != null) {
+            ControlledVocabulary cv = (ControlledVocabulary) type.getValue(TableColumn.VALUE);
+            s.spatialRepresentationType = cv == null ? "" : cv.name();
+        }
+
+        //SpatialReferenceSystem
+        TreeTable.Node refSys = getNodeByIdentifierPath(metadata, "referenceSystemInfo");
+        if (refSys != null) {
+            ReferenceSystem ref = (ReferenceSystem) refSys.getValue(TableColumn.VALUE);
+            if (ref != null) {
+                final Identifier name = ref.getName();
+                s.referenceSystem = Objects.toString(name, "");
+            }
+        }
+
+        //AxisDimensions, of the spatial representation having most of them
+        if (metadata != null && metadata.getRoot() != null) {
+            List<TreeTable.Node> axisDimensions = Collections.emptyList();
+            for (TreeTable.Node srinfo : getNodesByIdentifierPath(metadata.getRoot(), "spatialRepresentationInfo")) {
+                List<TreeTable.Node> axd = getNodesByIdentifierPath(srinfo, "axisDimensionProperties");
+                if (axd.size() > axisDimensions.size()) {
+                    axisDimensions = axd;
+                }
+            }
+            for (TreeTable.Node node : axisDimensions) {
+                Dimension dimension = (Dimension) node.getUserObject();
+                s.dimensionNames.add(dimension.getDimensionName() == null ? "" : dimension.getDimensionName().name());
+                s.dimensionSizes.add(Objects.toString(dimension.getDimensionSize(), ""));
+            }
+        }
+        return s;
+    }
+
+    /**
+     * @return the citation title, or an empty string
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return the abstract, or an empty string
+     */
+    public String getAbstract() {
+        return abstractText;
+    }
+
+    /**
+     * @return whether the four geographic bounds are known
+     */
+    public boolean hasBounds() {
+        return north != null && south != null && east != null && west != null;
+    }
+
+    public String getNorthBound() {
+        return north;
+    }
+
+    public String getSouthBound() {
+        return south;
+    }
+
+    public String getEastBound() {
+        return east;
+    }
+
+    public String getWestBound() {
+        return west;
+    }
+
+    /**
+     * @return the spatial representation type, or {@code null} if absent
+     */
+    public String getSpatialRepresentationType() {
+        return spatialRepresentationType;
+    }
+
+    /**
+     * @return name of the reference system, or {@code null} if absent
+     */
+    public String getReferenceSystem() {
+        return referenceSystem;
+    }
+
+    /**
+     * @return names of the axis dimensions, in axis order
+     */
+    public List<String> getDimensionNames() {
+        return Collections.unmodifiableList(dimensionNames);
+    }
+
+    /**
+     * @return sizes of the axis dimensions, in axis order
+     */
+    public List<String> getDimensionSizes() {
+        return Collections.unmodifiableList(dimensionSizes);
+    }
+
+    public static TreeTable.Node getNodeByIdentifierPath(TreeTable metadata, String... steps) {
+        if (metadata == null || metadata.getRoot() == null) {
+            return null;
+        }
+        boolean containsID = metadata.getColumns().contains(TableColumn.IDENTIFIER);
+        if (!containsID) {
+            return null;
+        }
+        TreeTable.Node root = metadata.getRoot();
+        for (String step : steps) {
+            Optional<TreeTable.Node> node = root.getChildren().stream().filter((TreeTable.Node t) -> {
+                String id = t.getValue(TableColumn.IDENTIFIER);
+                return step.equals(id);
+            }).findFirst();
+            if (!node.isPresent()) {
+                return null;
+            }
+            root = node.get();
+        }
+        return root;
+    }
+
+    public static List<TreeTable.Node> getNodesByIdentifierPath(TreeTable.Node node, String... steps) {
+        if (node == null) {
+            return null;
+        }
+
+        TreeTable.Node root = node;
+        for (int i = 0; i < steps.length - 1; i++) {
+            String step = steps[i];
+            Optional<TreeTable.Node> stepNode = root.getChildren().stream()
+                    .filter((TreeTable.Node t) -> {
+                        String id = t.getValue(TableColumn.IDENTIFIER);
+                        return step.equals(id);
+                    })
+                    .findFirst();
+            if (!stepNode.isPresent()) {
+                return Collections.<TreeTable.Node>emptyList();
+            }
+            root = stepNode.get();
+        }
+        return root.getChildren().stream().filter((t) -> steps[steps.length - 1].equals(t.getValue(TableColumn.IDENTIFIER))).collect(Collectors.toList());
+    }
+}
@@ -1,16 +1,18 @@
 package org.apache.sis.desktop.metadata;
 
 import java.io.File;
+import java.util.concurrent.Future;
 import javafx.concurrent.Task;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextArea;
+import org.apache.sis.desktop.DataStorePool;
+import org.apache.sis.desktop.MetadataCache;
 import org.apache.sis.desktop.MetadataView;
+import org.apache.sis.desktop.TaskScheduler;
 import org.apache.sis.metadata.MetadataStandard;
 import org.apache.sis.metadata.ValueExistencePolicy;
 import org.apache.sis.metadata.iso.DefaultMetadata;
-import org.apache.sis.storage.DataStore;
 import org.apache.sis.storage.DataStoreException;
-import org.apache.sis.storage.DataStores;
 import org.apache.sis.util.collection.TreeTable;
 import org.opengis.metadata.Metadata;
 
@@ -18,6 +20,7 @@ public class MetadataTable extends NodeTreeTable {
 
     Metadata metadata;
     DefaultMetadata editableMetadata;
+    private Future<?> loader;
 
     private MetadataTable() {
         valueColumn.setCellFactory(cdf -> new MetadataView.MetadataCell());
@@ -27,27 +30,60 @@ public class MetadataTable extends NodeTreeTable {
     }
 
     public MetadataTable(Metadata metadata) {
-        this();
+        this(createTreeTable(metadata));
         this.metadata = metadata;
-        editableMetadata = new DefaultMetadata(metadata);
-        TreeTable tt = MetadataStandard.ISO_19115.asTreeTable(editableMetadata, Metadata.class, ValueExistencePolicy.NON_EMPTY);
-        setTreeTable(tt);
+    }
+
+    /**
+     * Creates a table for a tree built by {@link #createTreeTable(Metadata)},
+     * possibly on another thread.
+     *
+     * @param treeTable tree view of an editable metadata
+     */
+    public MetadataTable(TreeTable treeTable) {
+        this();
+        setEditableMetadata(treeTable);
+        setTreeTable(treeTable);
+    }
+
+    /**
+     * Copies the metadata into an editable one and returns its tree view. This
+     * may take a while for large metadata and should be done on a background
+     * thread.
+     *
+     * @param metadata the metadata to show
+     * @return tree view of an editable copy of the metadata
+     */
+    public static TreeTable createTreeTable(Metadata metadata) {
+        return MetadataStandard.ISO_19115.asTreeTable(new DefaultMetadata(metadata), Metadata.class, ValueExistencePolicy.NON_EMPTY);
+    }
+
+    private void setEditableMetadata(TreeTable treeTable) {
+        Object root = treeTable.getRoot().getUserObject();
+        if (root instanceof DefaultMetadata) {
+            editableMetadata = (DefaultMetadata) root;
+            if (metadata == null) {
+                metadata = editableMetadata;
+            }
+        }
     }
 
     public MetadataTable(File file) {
         this();
-        Task<Metadata> task = new Task<Metadata>() {
+        Task<TreeTable> task = new Task<TreeTable>() {
             @Override
-            protected Metadata call() throws DataStoreException {
-                DataStore ds = DataStores.open(file);
-                return ds.getMetadata();
+            protected TreeTable call() throws DataStoreException {
+                final Metadata value;
+                try (DataStorePool.Handle handle = DataStorePool.getDefault().newHandle(file)) {
+                    value = MetadataCache.getDefault().getMetadata(handle);
+                }
+                return MetadataStandard.ISO_19115.asTreeTable(new DefaultMetadata(value), Metadata.class, ValueExistencePolicy.ALL);
             }
         };
         task.setOnSucceeded(wse -> {
-            final Metadata value = task.getValue();
-            metadata = value;
-            editableMetadata = new DefaultMetadata(value);
-            setTreeTable(MetadataStandard.ISO_19115.asTreeTable(editableMetadata, Metadata.class, ValueExistencePolicy.ALL));
+            final TreeTable value = task.getValue();
+            setEditableMetadata(value);
+            setTreeTable(value);
         });
         task.setOnRunning(wse -> {
             System.out.println("started extracting metadata");
@@ -59,10 +95,18 @@ public class MetadataTable extends NodeTreeTable {
             textArea.setEditable(false);
             setPlaceholder(textArea);
         });
-        final Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.start();
+        loader = TaskScheduler.getDefault().submit(task, TaskScheduler.Lane.FOREGROUND);
+    }
 
+    /**
+     * Also stops reading the metadata of the file this table was created for.
+     */
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (loader != null) {
+            TaskScheduler.getDefault().cancel(loader);
+        }
     }
 
     @Override
@@ -0,0 +1,65 @@
+package org.apache.sis.desktop.metadata;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.apache.sis.util.collection.TreeTable;
+import static org.apache.sis.util.collection.TableColumn.IDENTIFIER;
+import static org.apache.sis.util.collection.TableColumn.NAME;
+
+/**
+ * Remembers the name and path of the nodes of one {@link TreeTable}, so that
+ * configuration lookups done for every node and every sort comparison do not
+ * rebuild strings. Nodes are compared by identity, hence an instance must not
+ * outlive the tree it was used for. Paths are computed once per node from the
+ * path of the parent. Instances are thread safe.
+ *
+ * @author Siddhesh Rane
+ */
+public final class NodePaths {
+
+    private final Map<TreeTable.Node, String> names = new IdentityHashMap<>();
+    private final Map<TreeTable.Node, String> paths = new IdentityHashMap<>();
+
+    /**
+     * Returns the {@code IDENTIFIER} of the node, otherwise its {@code NAME}.
+     *
+     * @param node node having at least NAME field
+     * @return identifier, otherwise name
+     */
+    public synchronized String getName(TreeTable.Node node) {
+        String name = names.get(node);
+        if (name == null) {
+            String id = node.getValue(IDENTIFIER);
+            name = id == null ? node.getValue(NAME).toString() : id;
+            names.put(node, name);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the names of the node and its ancestors, excluding the root,
+     * each followed by a space. The root itself is its own name followed by a
+     * space.
+     *
+     * @param node a node of the tree
+     * @return the path of the node
+     */
+    public synchronized String getPath(TreeTable.Node node) {
+        String path = paths.get(node);
+        if (path == null) {
+            TreeTable.Node parent = node.getParent();
+            String prefix = parent != null && parent.getParent() != null ? getPath(parent) : "";
+            path = prefix + getName(node) + ' ';
+            paths.put(node, path);
+        }
+        return path;
+    }
+
+    /**
+     * Forgets all nodes.
+     */
+    public synchronized void clear() {
+        names.clear();
+        paths.clear();
+    }
+}
@@ -0,0 +1,130 @@
+package org.apache.sis.desktop.metadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+import org.apache.sis.util.collection.TreeTable;
+
+/**
+ * A {@link TreeItem} which creates the items for its children the first time
+ * they are asked for, typically when the item is expanded. Nodes rejected by
+ * the {@code createTreeItemForNode} predicate are flattened: their children
+ * are shown in their place. Children are sorted with the {@code order}
+ * comparator, if any. The predicates and comparator are read when the
+ * children are created, so a policy change only affects items created after
+ * it.
+ *
+ * @author Siddhesh Rane
+ */
+public class NodeTreeItem extends TreeItem<TreeTable.Node> {
+
+    private final ObservableValue<Predicate<TreeTable.Node>> createTreeItemForNode;
+    private final ObservableValue<Predicate<TreeTable.Node>> expandNode;
+    private final ObservableValue<Comparator<TreeTable.Node>> order;
+    private boolean loaded;
+
+    /**
+     * @param node                  the node shown by this item
+     * @param createTreeItemForNode whether a node gets its own item
+     * @param expandNode            whether an item is initially expanded
+     * @param order                 order of siblings, value may be
+     *                              {@code null} to keep the node order
+     */
+    public NodeTreeItem(TreeTable.Node node,
+                        ObservableValue<Predicate<TreeTable.Node>> createTreeItemForNode,
+                        ObservableValue<Predicate<TreeTable.Node>> expandNode,
+                        ObservableValue<Comparator<TreeTable.Node>> order) {
+        super(node);
+        this.createTreeItemForNode = createTreeItemForNode;
+        this.expandNode = expandNode;
+        this.order = order;
+    }
+
+    /**
+     * @return whether the children of this item have been created
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public ObservableList<TreeItem<TreeTable.Node>> getChildren() {
+        if (!loaded) {
+            loaded = true;
+            super.getChildren().setAll(createItems(getValue(), createTreeItemForNode, expandNode, order));
+        }
+        return super.getChildren();
+    }
+
+    /**
+     * Creates the children of this item and of its expanded descendants, as
+     * the tree table view would when showing it. Can be invoked from a
+     * background thread as long as the item is not yet in a tree table.
+     */
+    public void loadExpanded() {
+        if (isExpanded() && !isLeaf()) {
+            for (TreeItem<TreeTable.Node> child : getChildren()) {
+                if (child instanceof NodeTreeItem) {
+                    ((NodeTreeItem) child).loadExpanded();
+                }
+            }
+        }
+    }
+
+    /**
+     * Before the children are created this only tells whether the node has
+     * children, some of which may turn out to be hidden.
+     */
+    @Override
+    public boolean isLeaf() {
+        return loaded ? super.getChildren().isEmpty() : getValue() == null || getValue().isLeaf();
+    }
+
+    /**
+     * Creates lazy items for the visible children of the given node. Only the
+     * children themselves are examined, except for hidden nodes whose own
+     * children are looked at in turn.
+     *
+     * @param parent                the node whose children are wanted
+     * @param createTreeItemForNode whether a node gets its own item
+     * @param expandNode            whether an item is initially expanded
+     * @param order                 order of siblings, value may be
+     *                              {@code null}
+     * @return items for the children, sorted
+     */
+    public static List<TreeItem<TreeTable.Node>> createItems(TreeTable.Node parent,
+                                                             ObservableValue<Predicate<TreeTable.Node>> createTreeItemForNode,
+                                                             ObservableValue<Predicate<TreeTable.Node>> expandNode,
+                                                             ObservableValue<Comparator<TreeTable.Node>> order) {
+        final List<TreeItem<TreeTable.Node>> items = new ArrayList<>();
+        if (parent != null && !parent.isLeaf()) {
+            addItems(items, parent.getChildren(), createTreeItemForNode, expandNode, order);
+        }
+        final Comparator<TreeTable.Node> comparator = order == null ? null : order.getValue();
+        if (comparator != null && items.size() > 1) {
+            items.sort(Comparator.comparing(TreeItem<TreeTable.Node>::getValue, comparator));
+        }
+        return items;
+    }
+
+    private static void addItems(List<TreeItem<TreeTable.Node>> items, Collection<TreeTable.Node> children,
+                                 ObservableValue<Predicate<TreeTable.Node>> createTreeItemForNode,
+                                 ObservableValue<Predicate<TreeTable.Node>> expandNode,
+                                 ObservableValue<Comparator<TreeTable.Node>> order) {
+        for (TreeTable.Node node : children) {
+            //include this node in the tree table view?
+            if (createTreeItemForNode.getValue().test(node)) {
+                NodeTreeItem item = new NodeTreeItem(node, createTreeItemForNode, expandNode, order);
+                item.setExpanded(expandNode.getValue().test(node));
+                items.add(item);
+            } else if (!node.isLeaf()) {
+                addItems(items, node.getChildren(), createTreeItemForNode, expandNode, order);
+            }
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package org.apache.sis.desktop.metadata;
 
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
 import javafx.event.EventHandler;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
@@ -15,6 +20,7 @@ import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeTableColumn;
 import javafx.scene.control.TreeTableView;
 import javafx.scene.input.KeyEvent;
+import org.apache.sis.desktop.TaskScheduler;
 import org.apache.sis.util.collection.TableColumn;
 import static org.apache.sis.util.collection.TableColumn.IDENTIFIER;
 import static org.apache.sis.util.collection.TableColumn.NAME;
@@ -78,6 +84,9 @@ public class NodeTreeTable extends TreeTableView<TreeTable.Node> {
             return;
         }
         root.setExpanded(getExpandNode().test(root.getValue()));
+        if (root instanceof NodeTreeItem && !((NodeTreeItem) root).isLoaded()) {
+            return;
+        }
         for (TreeItem<TreeTable.Node> child : root.getChildren()) {
             expandNodes(child);
         }
@@ -155,12 +164,28 @@ public class NodeTreeTable extends TreeTableView<TreeTable.Node> {
         });
     }
 
+    private volatile NodePaths nodePaths = new NodePaths();
+    /**
+     * Returns the cache of node names and paths for the current tree table.
+     * A new cache is used whenever the tree table changes.
+     *
+     * @return node paths of the current tree table
+     */
+    public NodePaths getNodePaths() {
+        return nodePaths;
+    }
+
     public TreeTable getTreeTable() {
         return treeTable;
     }
     public void setTreeTable(TreeTable treeTable) {
+        if (treeTable != this.treeTable) {
+            nodePaths = new NodePaths();
+        }
         this.treeTable = treeTable;
         if (treeTable == null) {
+            generation.incrementAndGet();
+            loading.set(false);
             setRoot(null);
             return;
         }
@@ -200,26 +225,103 @@ public class NodeTreeTable extends TreeTableView<TreeTable.Node> {
         updateRoot();
     }
 
-    public void updateRoot() {
-        getRoot().getChildren().clear();
-        createTreeItems(getRoot(), treeTable.getRoot().getChildren());
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(false);
+    /**
+     * True while the items of the tree table are being built or added to the
+     * table by {@link #updateRoot()}.
+     *
+     * @return the loading property
+     */
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+    public boolean isLoading() {
+        return loading.get();
     }
 
-    protected void createTreeItems(TreeItem<TreeTable.Node> rootItem, Collection<TreeTable.Node> children) {
-        for (TreeTable.Node node : children) {
-            TreeItem parent = rootItem;
-            //include this node in the tree table view?
-            if (getCreateTreeItemForNode().test(node)) {
-                parent = new TreeItem(node);
-                parent.setExpanded(getExpandNode().test(node));
-                rootItem.getChildren().add(parent);
+    /**
+     * Recreates the items below the root. The items which are initially
+     * visible are filtered, sorted and expanded on a background thread, then
+     * added to the table a few at a time so that no pulse takes longer than
+     * {@link #PUBLISH_BUDGET_NANOS}. Other items are created when their parent
+     * is expanded. A new call discards the work of any previous call.
+     */
+    public void updateRoot() {
+        final TreeItem<TreeTable.Node> rootItem = getRoot();
+        final TreeTable.Node rootNode = treeTable.getRoot();
+        final int gen = generation.incrementAndGet();
+        if (builder != null) {
+            TaskScheduler.getDefault().cancel(builder);
+        }
+        loading.set(true);
+        rootItem.getChildren().clear();
+        //the policies may only be read on this thread, so the builder works on a snapshot of them
+        final ObservableValue<Predicate<TreeTable.Node>> create = new SimpleObjectProperty<>(getCreateTreeItemForNode());
+        final ObservableValue<Predicate<TreeTable.Node>> expand = new SimpleObjectProperty<>(getExpandNode());
+        final ObservableValue<Comparator<TreeTable.Node>> sort = new SimpleObjectProperty<>(getOrder());
+        builder = TaskScheduler.getDefault().submit(() -> {
+            final List<TreeItem<TreeTable.Node>> items = NodeTreeItem.createItems(rootNode, create, expand, sort);
+            for (TreeItem<TreeTable.Node> item : items) {
+                if (generation.get() != gen) {
+                    return;
+                }
+                ((NodeTreeItem) item).loadExpanded();
             }
-            if (!node.isLeaf()) {
-                createTreeItems(parent, node.getChildren());
+            Platform.runLater(new Publisher(rootItem, items, gen));
+        }, TaskScheduler.Lane.FOREGROUND);
+    }
+
+    /**
+     * Stops building the items of the table. To be called when the table is
+     * no longer displayed.
+     */
+    public void dispose() {
+        generation.incrementAndGet();
+        if (builder != null) {
+            TaskScheduler.getDefault().cancel(builder);
+        }
+    }
+
+    /**
+     * Maximum time spent adding items to the table in one pulse.
+     */
+    private static final long PUBLISH_BUDGET_NANOS = 8_000_000;
+    private static final int PUBLISH_CHUNK = 32;
+    private final AtomicInteger generation = new AtomicInteger();
+    private Future<?> builder;
+
+    /**
+     * Adds prepared items to the root, in chunks, until the time budget of the
+     * current pulse is exhausted, then reschedules itself.
+     */
+    private final class Publisher implements Runnable {
+
+        private final TreeItem<TreeTable.Node> rootItem;
+        private final List<TreeItem<TreeTable.Node>> items;
+        private final int gen;
+        private int published;
+
+        Publisher(TreeItem<TreeTable.Node> rootItem, List<TreeItem<TreeTable.Node>> items, int gen) {
+            this.rootItem = rootItem;
+            this.items = items;
+            this.gen = gen;
+        }
+
+        @Override
+        public void run() {
+            if (generation.get() != gen || getRoot() != rootItem) {
+                return;
             }
-            if (parent.getChildren().size() > 1) {
-                Comparator<TreeItem<TreeTable.Node>> cp = Comparator.comparing(TreeItem<TreeTable.Node>::getValue, getOrder());
-                parent.getChildren().sort(cp);
+            final long start = System.nanoTime();
+            do {
+                int end = Math.min(published + PUBLISH_CHUNK, items.size());
+                rootItem.getChildren().addAll(items.subList(published, end));
+                published = end;
+            } while (published < items.size() && System.nanoTime() - start < PUBLISH_BUDGET_NANOS);
+            if (published < items.size()) {
+                Platform.runLater(this);
+            } else {
+                loading.set(false);
             }
         }
     }
@@ -0,0 +1,230 @@
+package org.apache.sis.desktop.track;
+
+import java.util.Arrays;
+import org.apache.sis.desktop.PointColumns;
+
+/**
+ * Pyramid of simplified versions of a sequence of points. The Douglas-Peucker
+ * algorithm is run once down to the last point, recording for every point the
+ * tolerance at which it would be kept. Each level then keeps about a quarter of
+ * the points of the finer level, the most significant ones, until a level has
+ * at most {@value #MIN_POINTS} points. An overview of a million points track
+ * therefore reads a few thousand points only.
+ * <p>
+ * Distances are computed in degrees, longitudes being scaled by the cosine of
+ * the mean latitude, which is good enough to choose which points to show.
+ *
+ * @author Siddhesh Rane
+ */
+public final class LevelOfDetail {
+
+    /**
+     * Number of points below which no coarser level is built.
+     */
+    public static final int MIN_POINTS = 256;
+
+    private final int size;
+
+    /**
+     * Indices of the points of each level, in sequence order. Level 0 is the
+     * full sequence and is not stored.
+     */
+    private final int[][] levels;
+
+    /**
+     * Smallest tolerance of the points kept at each level, in degrees.
+     */
+    private final double[] tolerances;
+
+    private LevelOfDetail(int size, int[][] levels, double[] tolerances) {
+        this.size = size;
+        this.levels = levels;
+        this.tolerances = tolerances;
+    }
+
+    /**
+     * Builds the pyramid of the given points.
+     */
+    public static LevelOfDetail of(PointColumns points) {
+        final int n = points.size();
+        final float[] importance = importance(points);
+        //points with coordinates by decreasing importance then sequence order, a total order so that
+        //the m first points of every level are also among those of the finer levels
+        final long[] ranked = new long[n];
+        int candidates = 0;
+        for (int i = 0; i < n; i++) {
+            if (importance[i] >= 0) {
+                ranked[candidates++] = ((long) Float.floatToIntBits(importance[i]) << 32) | (Integer.MAX_VALUE - i);
+            }
+        }
+        Arrays.sort(ranked, 0, candidates);
+        int count = 1;
+        for (int m = n; m > MIN_POINTS; m /= 4) {
+            count++;
+        }
+        int[][] levels = new int[count][];
+        double[] tolerances = new double[count];
+        int m = n;
+        for (int level = 1; level < count; level++) {
+            m /= 4;
+            //keeps exactly the m most significant points, even when many share the same importance
+            final int kept = Math.min(m, candidates);
+            int[] indices = new int[kept];
+            for (int k = 0; k < kept; k++) {
+                indices[k] = Integer.MAX_VALUE - (int) ranked[candidates - 1 - k];
+            }
+            Arrays.sort(indices);
+            levels[level] = indices;
+            tolerances[level] = kept == 0 ? 0 : Float.intBitsToFloat((int) (ranked[candidates - kept] >>> 32));
+        }
+        return new LevelOfDetail(n, levels, tolerances);
+    }
+
+    /**
+     * Runs Douglas-Peucker on the whole sequence. A point gets the distance at
+     * which it splits its interval, capped by the value of the point which
+     * split the enclosing interval, so that every coarser level is a subset of
+     * the finer ones. End points are kept at all levels. Points without
+     * coordinates get -1 and are only in the full sequence.
+     */
+    private static float[] importance(PointColumns points) {
+        final int n = points.size();
+        final float[] importance = new float[n];
+        Arrays.fill(importance, -1);
+        double sumLat = 0;
+        int valid = 0;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            double lat = points.getLatitude(i);
+            if (!Double.isNaN(lat) && !Double.isNaN(points.getLongitude(i))) {
+                sumLat += lat;
+                importance[i] = 0;
+                order[valid++] = i;
+            }
+        }
+        if (valid == 0) {
+            return importance;
+        }
+        final double scale = Math.cos(Math.toRadians(sumLat / valid));
+        final double[] x = new double[valid];
+        final double[] y = new double[valid];
+        for (int i = 0; i < valid; i++) {
+            x[i] = points.getLongitude(order[i]) * scale;
+            y[i] = points.getLatitude(order[i]);
+        }
+        importance[order[0]] = Float.POSITIVE_INFINITY;
+        importance[order[valid - 1]] = Float.POSITIVE_INFINITY;
+        //explicit stack of (first, last, cap) instead of recursion, tracks can be long
+        int[] stack = new int[64];
+        float[] caps = new float[32];
+        int top = 0;
+        if (valid > 2) {
+            stack[0] = 0;
+            stack[1] = valid - 1;
+            caps[0] = Float.POSITIVE_INFINITY;
+            top = 1;
+        }
+        while (top > 0) {
+            top--;
+            final int first = stack[2 * top];
+            final int last = stack[2 * top + 1];
+            final float cap = caps[top];
+            double dx = x[last] - x[first];
+            double dy = y[last] - y[first];
+            double length2 = dx * dx + dy * dy;
+            int split = -1;
+            double max = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = distance2(x[i] - x[first], y[i] - y[first], dx, dy, length2);
+                if (d > max) {
+                    max = d;
+                    split = i;
+                }
+            }
+            float value = Math.min(cap, (float) Math.sqrt(max));
+            importance[order[split]] = value;
+            if (top + 2 > caps.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                caps = Arrays.copyOf(caps, caps.length * 2);
+            }
+            if (split - first > 1) {
+                stack[2 * top] = first;
+                stack[2 * top + 1] = split;
+                caps[top++] = value;
+            }
+            if (last - split > 1) {
+                stack[2 * top] = split;
+                stack[2 * top + 1] = last;
+                caps[top++] = value;
+            }
+        }
+        return importance;
+    }
+
+    /**
+     * @return squared distance from point (px,py) to the segment from the
+     *         origin to (dx,dy)
+     */
+    private static double distance2(double px, double py, double dx, double dy, double length2) {
+        if (length2 == 0) {
+            return px * px + py * py;
+        }
+        double t = Math.max(0, Math.min(1, (px * dx + py * dy) / length2));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * @return number of levels, at least 1
+     */
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * @return number of points at the given level
+     */
+    public int getSize(int level) {
+        return level == 0 ? size : levels[level].length;
+    }
+
+    /**
+     * @return the smallest tolerance in degrees of the points kept at the
+     *         given level, 0 for the full sequence
+     */
+    public double getTolerance(int level) {
+        return tolerances[level];
+    }
+
+    /**
+     * @return the finest level with at most the given number of points, or the
+     *         coarsest level if all have more
+     */
+    public int select(int maxPoints) {
+        for (int level = 0; level < levels.length; level++) {
+            if (getSize(level) <= maxPoints) {
+                return level;
+            }
+        }
+        return levels.length - 1;
+    }
+
+    /**
+     * Copies the points of a level.
+     *
+     * @param level  the level to copy
+     * @param source the full sequence this pyramid was built from
+     * @param target where to append the points
+     */
+    public void copy(int level, PointColumns source, PointColumns target) {
+        if (level == 0) {
+            target.addAll(source);
+            return;
+        }
+        for (int i : levels[level]) {
+            target.add(source.getLatitude(i), source.getLongitude(i), source.getElevation(i),
+                    source.getTime(i), source.getName(i), source.getDescription(i));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.apache.sis.desktop.track;
+
+import org.apache.sis.desktop.PointColumns;
+
+/**
+ * Summary of a sequence of points computed in a single pass while the points
+ * are read: number of points, length along the great circle between
+ * consecutive points, time span and elevation range.
+ *
+ * @author Siddhesh Rane
+ */
+public final class SegmentStatistics {
+
+    /**
+     * Mean radius of the Earth in metres, as used by the haversine formula.
+     */
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private int count;
+    private double length;
+    private double lastLatitude = Double.NaN;
+    private double lastLongitude = Double.NaN;
+    private long firstTime = PointColumns.NO_TIME;
+    private long lastTime = PointColumns.NO_TIME;
+    private double minElevation = Double.NaN;
+    private double maxElevation = Double.NaN;
+
+    /**
+     * Adds the next point of the sequence. Missing values are {@code NaN} or
+     * {@link PointColumns#NO_TIME} and are skipped.
+     */
+    public void accept(double latitude, double longitude, double elevation, long time) {
+        count++;
+        if (!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+            if (!Double.isNaN(lastLatitude)) {
+                length += distance(lastLatitude, lastLongitude, latitude, longitude);
+            }
+            lastLatitude = latitude;
+            lastLongitude = longitude;
+        }
+        if (!Double.isNaN(elevation)) {
+            if (Double.isNaN(minElevation)) {
+                minElevation = maxElevation = elevation;
+            } else {
+                minElevation = Math.min(minElevation, elevation);
+                maxElevation = Math.max(maxElevation, elevation);
+            }
+        }
+        if (time != PointColumns.NO_TIME) {
+            if (firstTime == PointColumns.NO_TIME) {
+                firstTime = time;
+            }
+            lastTime = time;
+        }
+    }
+
+    /**
+     * @return great circle distance in metres between two points given in
+     *         degrees
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDLat = Math.sin((phi2 - phi1) / 2);
+        double sinDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinDLat * sinDLat + Math.cos(phi1) * Math.cos(phi2) * sinDLon * sinDLon;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public int getPointCount() {
+        return count;
+    }
+
+    /**
+     * @return length in metres
+     */
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * @return milliseconds between the first and last timed points, or -1 if
+     *         no point has a time
+     */
+    public long getDuration() {
+        return firstTime == PointColumns.NO_TIME ? -1 : lastTime - firstTime;
+    }
+
+    /**
+     * @return lowest elevation in metres, or {@code NaN}
+     */
+    public double getMinElevation() {
+        return minElevation;
+    }
+
+    /**
+     * @return highest elevation in metres, or {@code NaN}
+     */
+    public double getMaxElevation() {
+        return maxElevation;
+    }
+}
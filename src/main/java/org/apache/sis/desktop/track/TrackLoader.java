@@ -0,0 +1,169 @@
+package org.apache.sis.desktop.track;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.ObservableList;
+import org.apache.sis.desktop.DataStorePool;
+import org.apache.sis.desktop.TaskScheduler;
+import org.apache.sis.internal.storage.FeatureStore;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.opengis.feature.Feature;
+
+/**
+ * Reads the routes and tracks of a store in one pass over its features. The
+ * pass is split in tasks of at most {@value #FEATURES_PER_TASK} features, each
+ * reading under the store lock, so that the waypoint table can read its own
+ * pages in between. Segments are added to the lists as soon as they are read.
+ * <p>
+ * All methods must be called from the JavaFX thread.
+ *
+ * @author Siddhesh Rane
+ */
+public final class TrackLoader {
+
+    private static final int FEATURES_PER_TASK = 256;
+
+    private final DataStorePool.Handle handle;
+    private final ObservableList<TrackSegment> routes;
+    private final ObservableList<TrackSegment> tracks;
+
+    /*
+     * Accessed by one task at a time, under the lock of the store.
+     */
+    private Stream<Feature> stream;
+    private Iterator<Feature> iterator;
+
+    private Future<?> task;
+    private volatile boolean cancelled;
+    private final ReadOnlyBooleanWrapper running = new ReadOnlyBooleanWrapper(false);
+
+    /**
+     * @param handle the store to read, closed by {@link #cancel()}
+     * @param routes the list receiving routes
+     * @param tracks the list receiving track segments
+     */
+    public TrackLoader(DataStorePool.Handle handle, ObservableList<TrackSegment> routes, ObservableList<TrackSegment> tracks) {
+        this.handle = handle;
+        this.routes = routes;
+        this.tracks = tracks;
+    }
+
+    /**
+     * @return true while features are being read
+     */
+    public ReadOnlyBooleanProperty runningProperty() {
+        return running.getReadOnlyProperty();
+    }
+
+    public void start() {
+        if (!cancelled && task == null) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Stops reading and releases the store.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        running.set(false);
+        if (task != null) {
+            TaskScheduler.getDefault().cancel(task);
+        }
+        TaskScheduler.getDefault().submit(() -> {
+            try {
+                closeStream();
+            } finally {
+                handle.close();
+            }
+        }, TaskScheduler.Lane.BACKGROUND);
+    }
+
+    private void scheduleNext() {
+        running.set(true);
+        task = TaskScheduler.getDefault().submit(this::read, TaskScheduler.Lane.FOREGROUND);
+    }
+
+    private void read() {
+        final List<Feature> features = new ArrayList<>();
+        final List<TrackSegment> segments = new ArrayList<>();
+        boolean end = false;
+        try {
+            DataStore datastore = handle.getStore();
+            if (!(datastore instanceof FeatureStore)) {
+                end = true;
+            } else {
+                synchronized (datastore) {
+                    if (iterator == null) {
+                        stream = ((FeatureStore) datastore).features();
+                        iterator = stream.iterator();
+                    }
+                    for (int i = 0; i < FEATURES_PER_TASK && !cancelled; i++) {
+                        if (!iterator.hasNext()) {
+                            end = true;
+                            break;
+                        }
+                        Feature feature = iterator.next();
+                        String type = feature.getType().getName().toString();
+                        if (type.contains(TrackSegment.ROUTE) || type.contains(TrackSegment.TRACK)) {
+                            features.add(feature);
+                        }
+                    }
+                    if (end) {
+                        closeStream();
+                    }
+                }
+                //statistics and simplification do not need the store
+                for (Feature feature : features) {
+                    segments.addAll(TrackSegment.of(feature));
+                }
+            }
+        } catch (DataStoreException | RuntimeException ex) {
+            Logger.getLogger(TrackLoader.class.getName()).log(Level.SEVERE, null, ex);
+            end = true;
+        }
+        final boolean finished = end;
+        Platform.runLater(() -> publish(segments, finished));
+    }
+
+    private void publish(List<TrackSegment> segments, boolean end) {
+        if (cancelled) {
+            return;
+        }
+        for (TrackSegment segment : segments) {
+            (TrackSegment.ROUTE.equals(segment.getKind()) ? routes : tracks).add(segment);
+        }
+        if (end) {
+            running.set(false);
+        } else {
+            scheduleNext();
+        }
+    }
+
+    private void closeStream() {
+        final DataStore datastore = handle.peekStore();
+        if (datastore == null) {
+            //the store was never opened, hence there is no stream
+            return;
+        }
+        synchronized (datastore) {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+                iterator = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.apache.sis.desktop.track;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.apache.sis.desktop.PointColumns;
+import org.opengis.feature.Feature;
+import org.opengis.feature.PropertyNotFoundException;
+
+/**
+ * A route, or one segment of a track, with its points, summary statistics and
+ * simplified versions. All are computed once when the segment is read and the
+ * segment is immutable afterwards, so it can be built on a worker thread and
+ * shown on the JavaFX thread.
+ *
+ * @author Siddhesh Rane
+ */
+public final class TrackSegment {
+
+    public static final String ROUTE = "Route";
+    public static final String TRACK = "Track";
+
+    private final String kind;
+    private final String name;
+    private final int segment;
+    private final PointColumns points;
+    private final SegmentStatistics statistics;
+    private final LevelOfDetail levels;
+
+    private TrackSegment(String kind, String name, int segment, PointColumns points, SegmentStatistics statistics) {
+        this.kind = kind;
+        this.name = name;
+        this.segment = segment;
+        this.points = points;
+        this.statistics = statistics;
+        this.levels = LevelOfDetail.of(points);
+    }
+
+    /**
+     * Reads the segments of a GPX route or track feature.
+     *
+     * @param feature a feature of type {@value #ROUTE} or {@value #TRACK}
+     * @return one segment for a route, one per segment for a track, or an
+     *         empty list for other features
+     */
+    public static Collection<TrackSegment> of(Feature feature) {
+        String type = feature.getType().getName().tip().toString();
+        Object name = value(feature, "name");
+        String title = name == null ? null : name.toString();
+        if (type.contains(ROUTE)) {
+            return Collections.singletonList(read(ROUTE, title, -1, value(feature, "rtept")));
+        }
+        if (type.contains(TRACK) && !type.contains("Segment")) {
+            Object segments = value(feature, "trkseg");
+            if (segments instanceof Collection) {
+                List<TrackSegment> list = new ArrayList<>();
+                for (Object s : (Collection<?>) segments) {
+                    if (s instanceof Feature) {
+                        list.add(read(TRACK, title, list.size(), value((Feature) s, "trkpt")));
+                    }
+                }
+                return list;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Reads the points and computes the statistics in the same pass.
+     */
+    private static TrackSegment read(String kind, String name, int segment, Object points) {
+        PointColumns columns = new PointColumns(points instanceof Collection ? ((Collection<?>) points).size() : 16);
+        SegmentStatistics statistics = new SegmentStatistics();
+        if (points instanceof Collection) {
+            for (Object point : (Collection<?>) points) {
+                if (point instanceof Feature) {
+                    columns.add((Feature) point);
+                    int row = columns.size() - 1;
+                    statistics.accept(columns.getLatitude(row), columns.getLongitude(row),
+                            columns.getElevation(row), columns.getTime(row));
+                }
+            }
+        }
+        return new TrackSegment(kind, name, segment, columns, statistics);
+    }
+
+    private static Object value(Feature feature, String property) {
+        try {
+            return feature.getPropertyValue(property);
+        } catch (PropertyNotFoundException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return {@link #ROUTE} or {@link #TRACK}
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return name of the route or track, or null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return index of this segment in its track, or -1 for a route
+     */
+    public int getSegment() {
+        return segment;
+    }
+
+    /**
+     * @return all points, not to be modified
+     */
+    public PointColumns getPoints() {
+        return points;
+    }
+
+    public SegmentStatistics getStatistics() {
+        return statistics;
+    }
+
+    public LevelOfDetail getLevels() {
+        return levels;
+    }
+
+    @Override
+    public String toString() {
+        String label = name == null ? kind : name;
+        return segment < 0 ? label : label + " #" + (segment + 1);
+    }
+}